@@ -1,30 +1,84 @@
 package com.recyclingquest;
+import com.recyclingquest.dao.CouponTierCatalog;
+import com.recyclingquest.dao.RollupDao;
+import com.recyclingquest.dao.UserDao;
 import com.recyclingquest.db.Database;
 import com.recyclingquest.db.Migrations;
+import com.recyclingquest.media.ThumbnailService;
+import com.recyclingquest.security.CredentialService;
+import com.recyclingquest.service.Leaderboard;
+import com.recyclingquest.service.RollupJob;
 import com.recyclingquest.ui.AuthScreen;
 import com.recyclingquest.ui.DashboardScreen;
+import com.recyclingquest.ui.FxAsync;
 import com.recyclingquest.ui.StartScreen;
+import com.recyclingquest.ui.StartupTimeline;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.File;
+
 public class MainApp extends Application {
 
     private Stage primaryStage;
     private Database database;
+    private FxAsync async;
+    // Shared so the user cache survives moving between screens
+    private UserDao userDao;
+    private CredentialService credentials;
+    // Shared so the tiers are loaded once and a saved tier is seen by every screen
+    private CouponTierCatalog tierCatalog;
+    // Shared so the ranking index is loaded once per run, not once per login
+    private Leaderboard leaderboard;
+    private RollupJob rollupJob;
+    // Shared so photo thumbnails stay decoded across logins
+    private ThumbnailService thumbnails;
+    private DashboardScreen dashboard;
+    private StartupTimeline startupTimeline;
+    private StartupTimeline dashboardTimeline;
 
     @Override
     public void start(Stage stage) {
+        this.startupTimeline = new StartupTimeline("application");
         this.primaryStage = stage;
 
         this.database = new Database();
+        startupTimeline.mark("database opened");
         Migrations.run(database);
+        startupTimeline.mark("migrations checked");
+        this.async = new FxAsync(4);
+        this.userDao = new UserDao(database);
+        this.credentials = new CredentialService(userDao);
+        this.tierCatalog = new CouponTierCatalog(database);
+        this.leaderboard = new Leaderboard(database, userDao);
+        this.rollupJob = new RollupJob(new RollupDao(database));
+        rollupJob.start();
+        this.thumbnails = new ThumbnailService(new File(Database.dataDir(), "thumbs"), 16L * 1024 * 1024, 2);
+        startupTimeline.mark("services ready");
 
         showStart();
+        startupTimeline.mark("start screen built");
+        startupTimeline.markFirstFrame(primaryStage.getScene());
         this.primaryStage.show();
     }
 
+    /**
+     * Timings from {@link #start(Stage)} to the first frame of the start screen.
+     */
+    public StartupTimeline getStartupTimeline() {
+        return startupTimeline;
+    }
+
+    /**
+     * Timings for the most recently opened dashboard, or null before the first login.
+     */
+    public StartupTimeline getDashboardTimeline() {
+        return dashboardTimeline;
+    }
+
     private void showStart() {
+        closeDashboard();
         StartScreen screen = new StartScreen(
                 () -> showAuth(com.recyclingquest.ui.AuthScreen.Mode.LOGIN),
                 () -> showAuth(com.recyclingquest.ui.AuthScreen.Mode.CREATE)
@@ -35,19 +89,49 @@ public class MainApp extends Application {
     }
 
     private void showAuth(com.recyclingquest.ui.AuthScreen.Mode mode) {
-        AuthScreen auth = new AuthScreen(database, mode, user -> showDashboard(user.getId()), this::showStart);
+        AuthScreen auth = new AuthScreen(userDao, credentials, async, mode, user -> showDashboard(user.getId()), this::showStart);
         Scene scene = new Scene(auth.getRoot(), 900, 600);
         scene.getStylesheets().add(getClass().getResource("/styles/app.css").toExternalForm());
         primaryStage.setScene(scene);
     }
 
     private void showDashboard(long userId) {
-        DashboardScreen dash = new DashboardScreen(database, userId, this::showStart);
+        DashboardScreen dash = new DashboardScreen(database, userDao, tierCatalog, leaderboard, rollupJob, thumbnails, async, userId, this::showStart);
+        dashboard = dash;
         Scene scene = new Scene(dash.getRoot(), 1000, 700);
         scene.getStylesheets().add(getClass().getResource("/styles/app.css").toExternalForm());
+        dashboardTimeline = dash.getTimeline();
+        dashboardTimeline.markFirstFrame(scene);
         primaryStage.setScene(scene);
     }
 
+    private void closeDashboard() {
+        if (dashboard != null) {
+            dashboard.dispose();
+            dashboard = null;
+        }
+    }
+
+    @Override
+    public void stop() {
+        closeDashboard();
+        if (async != null) {
+            async.shutdown();
+        }
+        if (credentials != null) {
+            credentials.shutdown();
+        }
+        if (rollupJob != null) {
+            rollupJob.shutdown();
+        }
+        if (thumbnails != null) {
+            thumbnails.shutdown();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -2,20 +2,28 @@ package com.recyclingquest.dao;
 
 import com.recyclingquest.db.Database;
 import com.recyclingquest.model.Coupon;
+import com.recyclingquest.model.CouponTier;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 public class CouponDao {
     private final Database db;
+    private final CouponTierCatalog tiers;
 
-    public CouponDao(Database db) { this.db = db; }
+    public CouponDao(Database db, CouponTierCatalog tiers) {
+        this.db = db;
+        this.tiers = tiers;
+    }
+
+    public CouponTierCatalog getTierCatalog() { return tiers; }
 
     public Optional<Coupon> getCouponByLevel(String level) {
-        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url FROM coupons WHERE level_required = ? AND is_claimed = 0 LIMIT 1";
+        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url, tier_points FROM coupons WHERE level_required = ? AND is_claimed = 0 LIMIT 1";
         try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, level);
             try (ResultSet rs = ps.executeQuery()) {
@@ -30,7 +38,7 @@ public class CouponDao {
     }
 
     public Optional<Coupon> getNextUnlockableCoupon(int currentPoints) {
-        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url FROM coupons WHERE CAST(level_required AS INTEGER) > ? AND is_claimed = 0 ORDER BY CAST(level_required AS INTEGER) ASC LIMIT 1";
+        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url, tier_points FROM coupons WHERE CAST(level_required AS INTEGER) > ? AND is_claimed = 0 ORDER BY CAST(level_required AS INTEGER) ASC LIMIT 1";
         try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, currentPoints);
             try (ResultSet rs = ps.executeQuery()) {
@@ -46,32 +54,41 @@ public class CouponDao {
 
     public void updateCoupon(Coupon coupon) {
         String sql = "UPDATE coupons SET level_required=?, company_name=?, description=?, discount=?, coupon_code=?, expiry_date=?, is_claimed=?, logo_url=? WHERE id=?";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, coupon.getLevelRequired());
-            ps.setString(2, coupon.getCompanyName());
-            ps.setString(3, coupon.getDescription());
-            ps.setString(4, coupon.getDiscount());
-            ps.setString(5, coupon.getCouponCode());
-            ps.setString(6, coupon.getExpiryDate() != null ? coupon.getExpiryDate().toString() : null);
-            ps.setBoolean(7, coupon.isClaimed());
-            ps.setString(8, coupon.getLogoUrl());
-            ps.setInt(9, coupon.getId());
-            ps.executeUpdate();
+        db.writeAndWait(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, coupon.getLevelRequired());
+                ps.setString(2, coupon.getCompanyName());
+                ps.setString(3, coupon.getDescription());
+                ps.setString(4, coupon.getDiscount());
+                ps.setString(5, coupon.getCouponCode());
+                ps.setString(6, coupon.getExpiryDate() != null ? coupon.getExpiryDate().toString() : null);
+                ps.setBoolean(7, coupon.isClaimed());
+                ps.setString(8, coupon.getLogoUrl());
+                ps.setInt(9, coupon.getId());
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    public Optional<Coupon> getCouponByPoints(int points) {
+        try (Connection c = db.getConnection()) {
+            return getCouponByPoints(c, points);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public Optional<Coupon> getCouponByPoints(int points) {
+    private Optional<Coupon> getCouponByPoints(Connection c, int points) {
         // Check if user has enough points
-        if (points < 20) {
+        CouponTier tier = tiers.tierFor(points);
+        if (tier == null) {
             return Optional.empty();
         }
         
         // Try to find a coupon matching the description
-        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url FROM coupons WHERE description LIKE ? AND is_claimed = 0 LIMIT 1";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            String searchTerm = "%" + getCouponDescriptionForPoints(points) + "%";
+        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url, tier_points FROM coupons WHERE description LIKE ? AND is_claimed = 0 LIMIT 1";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            String searchTerm = "%" + tier.getDescription() + "%";
             ps.setString(1, searchTerm);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -83,107 +100,95 @@ public class CouponDao {
         }
         
         // Return a virtual coupon based on points
-        return Optional.of(createVirtualCoupon(points));
-    }
-
-    private String getCouponDescriptionForPoints(int points) {
-        if (points >= 400) return "30% off on eco products";
-        else if (points >= 250) return "Plant a Tree Certificate";
-        else if (points >= 150) return "20% off LED Bulb";
-        else if (points >= 100) return "Free Eco Tote Bag";
-        else if (points >= 70) return "15% off Recycled T-shirt";
-        else if (points >= 40) return "10% off Eco Toiletries";
-        else if (points >= 20) return "5% off Recycled Stationery";
-        else return "";
+        return Optional.of(createVirtualCoupon(tier));
     }
 
-    private Coupon createVirtualCoupon(int points) {
+    private Coupon createVirtualCoupon(CouponTier tier) {
         Coupon c = new Coupon();
         c.setId(-1); // Virtual coupon, not in DB
-        if (points >= 400) {
-            c.setDescription("30% off on eco products");
-            c.setCouponCode("ECO30-" + System.currentTimeMillis() % 10000);
-            c.setDiscount("30% OFF");
-        } else if (points >= 250) {
-            c.setDescription("Plant a Tree Certificate");
-            c.setCouponCode("TREE-" + System.currentTimeMillis() % 10000);
-            c.setDiscount("Certificate");
-        } else if (points >= 150) {
-            c.setDescription("20% off LED Bulb");
-            c.setCouponCode("LED20-" + System.currentTimeMillis() % 10000);
-            c.setDiscount("20% OFF");
-        } else if (points >= 100) {
-            c.setDescription("Free Eco Tote Bag");
-            c.setCouponCode("TOTE-" + System.currentTimeMillis() % 10000);
-            c.setDiscount("FREE");
-        } else if (points >= 70) {
-            c.setDescription("15% off Recycled T-shirt");
-            c.setCouponCode("TSHIRT15-" + System.currentTimeMillis() % 10000);
-            c.setDiscount("15% OFF");
-        } else if (points >= 40) {
-            c.setDescription("10% off Eco Toiletries");
-            c.setCouponCode("TOIL10-" + System.currentTimeMillis() % 10000);
-            c.setDiscount("10% OFF");
-        } else if (points >= 20) {
-            c.setDescription("5% off Recycled Stationery");
-            c.setCouponCode("STAT5-" + System.currentTimeMillis() % 10000);
-            c.setDiscount("5% OFF");
-        }
+        c.setDescription(tier.getDescription());
+        c.setCouponCode(tier.getCodePrefix() + "-" + System.currentTimeMillis() % 10000);
+        c.setDiscount(tier.getDiscount());
+        c.setTierPoints(tier.getPoints());
         c.setCompanyName("Eco Rewards");
         c.setExpiryDate(java.time.LocalDate.now().plusMonths(6));
         return c;
     }
 
-    public void redeemCouponForUser(long userId, Coupon coupon) {
+    /**
+     * Redeems a coupon for the user in one transaction and returns the coupon actually redeemed.
+     * A virtual coupon is persisted as claimed. A real coupon is taken with a conditional
+     * {@code UPDATE ... WHERE is_claimed = 0}; if the update matched no row, someone else claimed
+     * it first and the next unclaimed code of the same offer is tried instead, so a code can never
+     * be handed to two users.
+     *
+     * @throws NoSuchElementException if every code of the offer is already claimed (nothing is written)
+     */
+    public Coupon redeemCouponForUser(long userId, Coupon coupon) {
+        return db.writeAndWait(c -> redeemCouponForUser(c, userId, coupon));
+    }
+
+    private Coupon redeemCouponForUser(Connection c, long userId, Coupon coupon) throws SQLException {
+        Coupon redeemed = coupon;
         if (coupon.getId() == -1) {
             // Virtual coupon: persist it into coupons first to satisfy FK, then record redemption
-            String insertCoupon = "INSERT INTO coupons(level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url) VALUES(?,?,?,?,?,?,1,?)";
-            String insertUserCoupon = "INSERT INTO user_coupons (user_id, coupon_id, redeemed_at) VALUES (?, ?, ?)";
-            try (Connection c = db.getConnection()) {
-                // Insert coupon and get generated id
-                try (PreparedStatement ps = c.prepareStatement(insertCoupon, Statement.RETURN_GENERATED_KEYS)) {
-                    ps.setString(1, coupon.getLevelRequired() != null ? coupon.getLevelRequired() : "Virtual");
-                    ps.setString(2, coupon.getCompanyName() != null ? coupon.getCompanyName() : "Eco Rewards");
-                    ps.setString(3, coupon.getDescription());
-                    ps.setString(4, coupon.getDiscount());
-                    ps.setString(5, coupon.getCouponCode());
-                    ps.setString(6, coupon.getExpiryDate() != null ? coupon.getExpiryDate().toString() : null);
-                    ps.setString(7, coupon.getLogoUrl());
-                    ps.executeUpdate();
-                    try (ResultSet rs = ps.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            int newId = rs.getInt(1);
-                            coupon.setId(newId);
-                        }
-                    }
+            String insertCoupon = "INSERT INTO coupons(level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url, tier_points) VALUES(?,?,?,?,?,?,1,?,?)";
+            try (PreparedStatement ps = c.prepareStatement(insertCoupon, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, coupon.getLevelRequired() != null ? coupon.getLevelRequired() : "Virtual");
+                ps.setString(2, coupon.getCompanyName() != null ? coupon.getCompanyName() : "Eco Rewards");
+                ps.setString(3, coupon.getDescription());
+                ps.setString(4, coupon.getDiscount());
+                ps.setString(5, coupon.getCouponCode());
+                ps.setString(6, coupon.getExpiryDate() != null ? coupon.getExpiryDate().toString() : null);
+                ps.setString(7, coupon.getLogoUrl());
+                if (coupon.getTierPoints() > 0) {
+                    ps.setInt(8, coupon.getTierPoints());
+                } else {
+                    ps.setNull(8, Types.INTEGER);
                 }
-                // Record redemption
-                try (PreparedStatement ps2 = c.prepareStatement(insertUserCoupon)) {
-                    ps2.setLong(1, userId);
-                    ps2.setInt(2, coupon.getId());
-                    ps2.setLong(3, System.currentTimeMillis());
-                    ps2.executeUpdate();
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        int newId = rs.getInt(1);
+                        coupon.setId(newId);
+                    }
                 }
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
             }
         } else {
-            // Real coupon - mark as claimed and record redemption
-            String sql1 = "UPDATE coupons SET is_claimed = 1 WHERE id = ?";
-            String sql2 = "INSERT INTO user_coupons (user_id, coupon_id, redeemed_at) VALUES (?, ?, ?)";
-            try (Connection c = db.getConnection()) {
-                try (PreparedStatement ps1 = c.prepareStatement(sql1)) {
-                    ps1.setInt(1, coupon.getId());
-                    ps1.executeUpdate();
+            redeemed = claim(c, coupon);
+        }
+        // Record redemption
+        try (PreparedStatement ps2 = c.prepareStatement("INSERT INTO user_coupons (user_id, coupon_id, redeemed_at) VALUES (?, ?, ?)")) {
+            ps2.setLong(1, userId);
+            ps2.setInt(2, redeemed.getId());
+            ps2.setLong(3, System.currentTimeMillis());
+            ps2.executeUpdate();
+        }
+        return redeemed;
+    }
+
+    // Marks the coupon, or failing that the next free code of the same offer, as claimed
+    private Coupon claim(Connection c, Coupon wanted) throws SQLException {
+        Coupon candidate = wanted;
+        String nextSql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url, tier_points " +
+                "FROM coupons WHERE level_required IS ? AND description IS ? AND is_claimed = 0 ORDER BY id LIMIT 1";
+        try (PreparedStatement update = c.prepareStatement("UPDATE coupons SET is_claimed = 1 WHERE id = ? AND is_claimed = 0");
+             PreparedStatement next = c.prepareStatement(nextSql)) {
+            while (true) {
+                update.setInt(1, candidate.getId());
+                if (update.executeUpdate() == 1) {
+                    candidate.setClaimed(true);
+                    return candidate;
                 }
-                try (PreparedStatement ps2 = c.prepareStatement(sql2)) {
-                    ps2.setLong(1, userId);
-                    ps2.setInt(2, coupon.getId());
-                    ps2.setLong(3, System.currentTimeMillis());
-                    ps2.executeUpdate();
+                // Lost the race for this code; the failed update changed nothing, so try the next one
+                next.setString(1, wanted.getLevelRequired());
+                next.setString(2, wanted.getDescription());
+                try (ResultSet rs = next.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new NoSuchElementException("All codes for '" + wanted.getDescription() + "' have been claimed");
+                    }
+                    candidate = map(rs);
                 }
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
             }
         }
     }
@@ -207,7 +212,7 @@ public class CouponDao {
 
     public List<Coupon> getAllAvailableCoupons() {
         List<Coupon> coupons = new ArrayList<>();
-        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url FROM coupons WHERE is_claimed = 0 ORDER BY id";
+        String sql = "SELECT id, level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url, tier_points FROM coupons WHERE is_claimed = 0 ORDER BY id";
         try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -222,7 +227,7 @@ public class CouponDao {
 
     public List<Coupon> getUserRedeemedCoupons(long userId) {
         List<Coupon> coupons = new ArrayList<>();
-        String sql = "SELECT c.id, c.level_required, c.company_name, c.description, c.discount, c.coupon_code, c.expiry_date, c.is_claimed, c.logo_url " +
+        String sql = "SELECT c.id, c.level_required, c.company_name, c.description, c.discount, c.coupon_code, c.expiry_date, c.is_claimed, c.logo_url, c.tier_points " +
                      "FROM coupons c " +
                      "JOIN user_coupons uc ON c.id = uc.coupon_id " +
                      "WHERE uc.user_id = ? " +
@@ -241,48 +246,73 @@ public class CouponDao {
     }
 
     public List<Coupon> awardEligibleCoupons(long userId, int totalPoints) {
-        List<Coupon> newlyAwarded = new ArrayList<>();
-        
-        // Define all coupon thresholds
-        int[] thresholds = {20, 40, 70, 100, 150, 250, 400};
-        String[] descriptions = {
-            "5% off Recycled Stationery",
-            "10% off Eco Toiletries", 
-            "15% off Recycled T-shirt",
-            "Free Eco Tote Bag",
-            "20% off LED Bulb",
-            "Plant a Tree Certificate",
-            "30% off on eco products"
-        };
-        
-        // Check each threshold
-        for (int i = 0; i < thresholds.length; i++) {
-            if (totalPoints >= thresholds[i]) {
-                // Check if user already has this coupon
-                String checkSql = "SELECT COUNT(1) FROM user_coupons uc JOIN coupons c ON uc.coupon_id = c.id " +
-                                "WHERE uc.user_id = ? AND c.description LIKE ?";
-                
-                try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(checkSql)) {
-                    ps.setLong(1, userId);
-                    ps.setString(2, "%" + descriptions[i] + "%");
-                    
-                    try (ResultSet rs = ps.executeQuery()) {
-                        if (rs.next() && rs.getInt(1) == 0) {
-                            // User doesn't have this coupon, award it
-                            Optional<Coupon> couponOpt = getCouponByPoints(thresholds[i]);
-                            if (couponOpt.isPresent()) {
-                                Coupon coupon = couponOpt.get();
-                                redeemCouponForUser(userId, coupon);
-                                newlyAwarded.add(coupon);
-                            }
+        return db.writeAndWait(c -> awardEligibleCoupons(c, userId, totalPoints));
+    }
+
+    /**
+     * Awards every coupon tier the user has reached but not yet received, on the caller's connection.
+     * Missing tiers are found with one query on the indexed tier_points key, and all awards are
+     * written with one multi-row insert plus one batch.
+     */
+    public List<Coupon> awardEligibleCoupons(Connection c, long userId, int totalPoints) throws SQLException {
+        List<Integer> missingTiers = new ArrayList<>();
+        String missingSql = "SELECT t.points FROM coupon_tiers t WHERE t.points <= ? AND NOT EXISTS (" +
+                "SELECT 1 FROM user_coupons uc JOIN coupons c ON c.id = uc.coupon_id " +
+                "WHERE uc.user_id = ? AND c.tier_points = t.points) ORDER BY t.points";
+        try (PreparedStatement ps = c.prepareStatement(missingSql)) {
+            ps.setInt(1, totalPoints);
+            ps.setLong(2, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    missingTiers.add(rs.getInt(1));
+                }
+            }
+        }
+        if (missingTiers.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Coupon> newlyAwarded = new ArrayList<>(missingTiers.size());
+        StringBuilder insertSql = new StringBuilder("INSERT INTO coupons(level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url, tier_points) VALUES");
+        for (int i = 0; i < missingTiers.size(); i++) {
+            newlyAwarded.add(createVirtualCoupon(tiers.tierFor(missingTiers.get(i))));
+            insertSql.append(i == 0 ? "" : ",").append("(?,?,?,?,?,?,1,?,?)");
+        }
+        insertSql.append(" RETURNING id, tier_points");
+        try (PreparedStatement ps = c.prepareStatement(insertSql.toString())) {
+            int idx = 1;
+            for (Coupon coupon : newlyAwarded) {
+                ps.setString(idx++, "Virtual");
+                ps.setString(idx++, coupon.getCompanyName());
+                ps.setString(idx++, coupon.getDescription());
+                ps.setString(idx++, coupon.getDiscount());
+                ps.setString(idx++, coupon.getCouponCode());
+                ps.setString(idx++, coupon.getExpiryDate().toString());
+                ps.setString(idx++, coupon.getLogoUrl());
+                ps.setInt(idx++, coupon.getTierPoints());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int tier = rs.getInt("tier_points");
+                    for (Coupon coupon : newlyAwarded) {
+                        if (coupon.getTierPoints() == tier) {
+                            coupon.setId(rs.getInt("id"));
                         }
                     }
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
                 }
             }
         }
-        
+
+        long now = System.currentTimeMillis();
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO user_coupons (user_id, coupon_id, redeemed_at) VALUES (?, ?, ?)")) {
+            for (Coupon coupon : newlyAwarded) {
+                ps.setLong(1, userId);
+                ps.setInt(2, coupon.getId());
+                ps.setLong(3, now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
         return newlyAwarded;
     }
 
@@ -298,6 +328,7 @@ public class CouponDao {
         c.setExpiryDate(date != null ? LocalDate.parse(date) : null);
         c.setClaimed(rs.getBoolean("is_claimed"));
         c.setLogoUrl(rs.getString("logo_url"));
+        c.setTierPoints(rs.getInt("tier_points"));
         return c;
     }
 }
@@ -0,0 +1,115 @@
+package com.recyclingquest.dao;
+
+import com.recyclingquest.db.Database;
+import com.recyclingquest.model.CouponTier;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Single source of truth for coupon tiers. The coupon_tiers table is loaded once into an
+ * immutable index (sorted thresholds + parallel tier array); lookups are a binary search with
+ * no allocation. Saving a tier swaps in a freshly loaded index.
+ */
+public class CouponTierCatalog {
+    private final Database db;
+    private volatile Index index;
+
+    public CouponTierCatalog(Database db) {
+        this.db = db;
+    }
+
+    /**
+     * Highest tier reached with the given points, or null if below the first tier.
+     */
+    public CouponTier tierFor(int points) {
+        Index idx = index();
+        int pos = Arrays.binarySearch(idx.thresholds, points);
+        int i = pos >= 0 ? pos : -pos - 2;
+        return i >= 0 ? idx.tiers[i] : null;
+    }
+
+    /**
+     * Lowest tier above the given points, or null if every tier has been reached.
+     */
+    public CouponTier nextTierAfter(int points) {
+        Index idx = index();
+        int pos = Arrays.binarySearch(idx.thresholds, points);
+        int i = pos >= 0 ? pos + 1 : -pos - 1;
+        return i < idx.tiers.length ? idx.tiers[i] : null;
+    }
+
+    /**
+     * Points needed for the first tier, or empty if no tiers are defined.
+     */
+    public OptionalInt lowestTierPoints() {
+        Index idx = index();
+        return idx.thresholds.length > 0 ? OptionalInt.of(idx.thresholds[0]) : OptionalInt.empty();
+    }
+
+    public List<CouponTier> tiers() {
+        return List.of(index().tiers);
+    }
+
+    public void saveTier(CouponTier tier) {
+        String sql = "INSERT INTO coupon_tiers(points, description, discount, code_prefix) VALUES(?,?,?,?) " +
+                "ON CONFLICT(points) DO UPDATE SET description = excluded.description, discount = excluded.discount, code_prefix = excluded.code_prefix";
+        db.writeAndWait(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, tier.getPoints());
+                ps.setString(2, tier.getDescription());
+                ps.setString(3, tier.getDiscount());
+                ps.setString(4, tier.getCodePrefix());
+                return ps.executeUpdate();
+            }
+        });
+        refresh();
+    }
+
+    public void refresh() {
+        String sql = "SELECT points, description, discount, code_prefix FROM coupon_tiers ORDER BY points";
+        List<CouponTier> loaded = new ArrayList<>();
+        try (Connection c = db.getConnection(); Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                loaded.add(new CouponTier(
+                        rs.getInt("points"),
+                        rs.getString("description"),
+                        rs.getString("discount"),
+                        rs.getString("code_prefix")
+                ));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        index = new Index(loaded.toArray(new CouponTier[0]));
+    }
+
+    private Index index() {
+        Index idx = index;
+        if (idx == null) {
+            synchronized (this) {
+                if (index == null) {
+                    refresh();
+                }
+                idx = index;
+            }
+        }
+        return idx;
+    }
+
+    private static final class Index {
+        private final int[] thresholds;
+        private final CouponTier[] tiers;
+
+        Index(CouponTier[] tiers) {
+            this.tiers = tiers;
+            this.thresholds = new int[tiers.length];
+            for (int i = 0; i < tiers.length; i++) {
+                thresholds[i] = tiers[i].getPoints();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.recyclingquest.dao;
+
+import com.recyclingquest.model.RecycleEntry;
+
+public class RecycleChange {
+    public enum Type { INSERTED, UPDATED }
+
+    private final Type type;
+    private final RecycleEntry entry;
+
+    public RecycleChange(Type type, RecycleEntry entry) {
+        this.type = type;
+        this.entry = entry;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public RecycleEntry getEntry() {
+        return entry;
+    }
+}
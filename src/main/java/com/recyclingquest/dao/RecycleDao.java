@@ -6,43 +6,170 @@ import com.recyclingquest.model.RecycleEntry;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class RecycleDao {
+    private static final String COLUMNS = "id, user_id, category, weight_kg, photo_path, photo_hash, created_at";
+    private static final int DEFAULT_PAGE_SIZE = Integer.getInteger("recyclingquest.history.pageSize", 50);
+
     private final Database db;
+    private final StatsDao stats;
+    private final RollupDao rollups;
+    private final List<Consumer<RecycleChange>> listeners = new CopyOnWriteArrayList<>();
 
     public RecycleDao(Database db) {
         this.db = db;
+        this.stats = new StatsDao(db);
+        this.rollups = new RollupDao(db);
     }
 
-    public void insert(RecycleEntry e) {
-        String sql = "INSERT INTO recycle_entries(user_id, category, weight_kg, photo_path, created_at) VALUES(?,?,?,?,?)";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+    /**
+     * Listeners are called on the database writer thread right after the change commits, in
+     * commit order. They must be quick and must not wait on writes.
+     */
+    public void addChangeListener(Consumer<RecycleChange> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(Consumer<RecycleChange> listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(RecycleChange change) {
+        for (Consumer<RecycleChange> l : listeners) {
+            l.accept(change);
+        }
+    }
+
+    public RecycleEntry insert(RecycleEntry e) {
+        return db.writeAndWait(c -> insert(c, e));
+    }
+
+    /**
+     * Inserts inside a write job and sets the generated id on the entry. user_stats is updated in
+     * the same transaction; the change is published once it commits.
+     */
+    public RecycleEntry insert(Connection c, RecycleEntry e) throws SQLException {
+        String sql = "INSERT INTO recycle_entries(user_id, category, weight_kg, photo_path, photo_hash, created_at) VALUES(?,?,?,?,?,?)";
+        try (PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setLong(1, e.getUserId());
             ps.setString(2, e.getCategory());
             ps.setDouble(3, e.getWeightKg());
             ps.setString(4, e.getPhotoPath());
-            ps.setLong(5, e.getCreatedAt());
+            ps.setString(5, e.getPhotoHash());
+            ps.setLong(6, e.getCreatedAt());
             ps.executeUpdate();
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    e.setId(rs.getLong(1));
+                }
+            }
+        }
+        stats.entryAdded(c, e);
+        db.afterCommit(() -> publish(new RecycleChange(RecycleChange.Type.INSERTED, e)));
+        return e;
+    }
+
+    /**
+     * Inserts many entries on the caller's connection with one prepared statement and a single
+     * JDBC batch, plus one user_stats upsert per (user, category). Generated ids are not read
+     * back. No change is published.
+     */
+    public void insertBatch(Connection c, List<RecycleEntry> entries) throws SQLException {
+        String sql = "INSERT INTO recycle_entries(user_id, category, weight_kg, photo_path, photo_hash, created_at) VALUES(?,?,?,?,?,?)";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (RecycleEntry e : entries) {
+                ps.setLong(1, e.getUserId());
+                ps.setString(2, e.getCategory());
+                ps.setDouble(3, e.getWeightKg());
+                ps.setString(4, e.getPhotoPath());
+                ps.setString(5, e.getPhotoHash());
+                ps.setLong(6, e.getCreatedAt());
+                ps.addBatch();
+            }
+            ps.executeBatch();
         }
+        stats.entriesAdded(c, entries);
     }
 
     public List<RecycleEntry> listByUser(long userId) {
-        String sql = "SELECT id, user_id, category, weight_kg, photo_path, created_at FROM recycle_entries WHERE user_id = ? ORDER BY created_at DESC";
         List<RecycleEntry> list = new ArrayList<>();
+        forEachByUser(userId, list::add);
+        return list;
+    }
+
+    /**
+     * Streams a user's history, newest first, without materializing it.
+     */
+    public void forEachByUser(long userId, Consumer<RecycleEntry> action) {
+        String sql = "SELECT " + COLUMNS + " FROM recycle_entries WHERE user_id = ? ORDER BY created_at DESC, id DESC";
         try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    RecycleEntry e = new RecycleEntry();
-                    e.setId(rs.getLong("id"));
-                    e.setUserId(rs.getLong("user_id"));
-                    e.setCategory(rs.getString("category"));
-                    e.setWeightKg(rs.getDouble("weight_kg"));
-                    e.setPhotoPath(rs.getString("photo_path"));
-                    e.setCreatedAt(rs.getLong("created_at"));
-                    list.add(e);
+                    action.accept(map(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public Page<RecycleEntry> listPage(long userId, RecycleEntry after) {
+        return listPage(userId, after, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * One page of a user's history, newest first. Pass the last entry of the previous page as
+     * {@code after} (null for the first page); the (created_at, id) keyset seeks straight to it
+     * on idx_recycle_user_created, so every page costs the same however deep it is.
+     */
+    public Page<RecycleEntry> listPage(long userId, RecycleEntry after, int pageSize) {
+        String sql = "SELECT " + COLUMNS + " FROM recycle_entries WHERE user_id = ?" +
+                (after != null ? " AND (created_at, id) < (?, ?)" : "") +
+                " ORDER BY created_at DESC, id DESC LIMIT ?";
+        List<RecycleEntry> list = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            int idx = 1;
+            ps.setLong(idx++, userId);
+            if (after != null) {
+                ps.setLong(idx++, after.getCreatedAt());
+                ps.setLong(idx++, after.getId());
+            }
+            // Fetch one extra row to know whether another page exists
+            ps.setInt(idx, pageSize + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (list.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    list.add(map(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+        return new Page<>(list, hasMore);
+    }
+
+    /**
+     * Page starting at a row offset. Only for jumping to a position whose keyset cursor is not
+     * known yet (e.g. dragging the scrollbar); sequential paging should use {@link #listPage}.
+     */
+    public List<RecycleEntry> listPageAt(long userId, int offset, int pageSize) {
+        String sql = "SELECT " + COLUMNS + " FROM recycle_entries WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?";
+        List<RecycleEntry> list = new ArrayList<>(pageSize);
+        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, userId);
+            ps.setInt(2, pageSize);
+            ps.setInt(3, offset);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(map(rs));
                 }
             }
         } catch (SQLException ex) {
@@ -51,17 +178,75 @@ public class RecycleDao {
         return list;
     }
 
-    public void update(RecycleEntry e) {
-        String sql = "UPDATE recycle_entries SET category = ?, weight_kg = ?, photo_path = ? WHERE id = ? AND user_id = ?";
+    public int countByUser(long userId) {
+        String sql = "SELECT COUNT(*) FROM recycle_entries WHERE user_id = ?";
         try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Updates an entry and returns the row as persisted.
+     *
+     * @throws NoSuchElementException if the entry does not exist for that user
+     */
+    public RecycleEntry update(RecycleEntry e) {
+        return db.writeAndWait(c -> update(c, e));
+    }
+
+    /**
+     * Updates inside a write job and moves the entry's weight (and count, if the category
+     * changed) from its old values to the new ones in user_stats and, once rolled up, in
+     * recycle_rollups. The change is published once it commits.
+     */
+    public RecycleEntry update(Connection c, RecycleEntry e) throws SQLException {
+        String oldCategory;
+        double oldWeight;
+        try (PreparedStatement ps = c.prepareStatement("SELECT category, weight_kg FROM recycle_entries WHERE id = ? AND user_id = ?")) {
+            ps.setLong(1, e.getId());
+            ps.setLong(2, e.getUserId());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new NoSuchElementException("No recycle entry " + e.getId() + " for user " + e.getUserId());
+                }
+                oldCategory = rs.getString(1);
+                oldWeight = rs.getDouble(2);
+            }
+        }
+        String sql = "UPDATE recycle_entries SET category = ?, weight_kg = ?, photo_path = ?, photo_hash = ? WHERE id = ? AND user_id = ? RETURNING " + COLUMNS;
+        RecycleEntry saved;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, e.getCategory());
             ps.setDouble(2, e.getWeightKg());
             ps.setString(3, e.getPhotoPath());
-            ps.setLong(4, e.getId());
-            ps.setLong(5, e.getUserId());
-            ps.executeUpdate();
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+            ps.setString(4, e.getPhotoHash());
+            ps.setLong(5, e.getId());
+            ps.setLong(6, e.getUserId());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                saved = map(rs);
+            }
         }
+        stats.entryChanged(c, oldCategory, oldWeight, saved);
+        rollups.entryChanged(c, oldCategory, oldWeight, saved);
+        db.afterCommit(() -> publish(new RecycleChange(RecycleChange.Type.UPDATED, saved)));
+        return saved;
+    }
+
+    private RecycleEntry map(ResultSet rs) throws SQLException {
+        RecycleEntry e = new RecycleEntry();
+        e.setId(rs.getLong("id"));
+        e.setUserId(rs.getLong("user_id"));
+        e.setCategory(rs.getString("category"));
+        e.setWeightKg(rs.getDouble("weight_kg"));
+        e.setPhotoPath(rs.getString("photo_path"));
+        e.setPhotoHash(rs.getString("photo_hash"));
+        e.setCreatedAt(rs.getLong("created_at"));
+        return e;
     }
 }
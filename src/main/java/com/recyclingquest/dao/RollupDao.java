@@ -0,0 +1,189 @@
+package com.recyclingquest.dao;
+
+import com.recyclingquest.db.Database;
+import com.recyclingquest.model.RecycleEntry;
+import com.recyclingquest.model.RollupPoint;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily, weekly and monthly recycling volume per user, per city and overall, split by category,
+ * in recycle_rollups. Rows are added by {@link #rollUpNext(int)}, which folds in entries past a
+ * watermark (the highest entry id already counted), so charts read a few dozen pre-aggregated
+ * rows instead of scanning recycle_entries. Edits to entries already counted are applied as
+ * deltas by RecycleDao in the edit's own transaction. Buckets use the system time zone.
+ */
+public class RollupDao {
+    public enum Period { DAY, WEEK, MONTH }
+
+    public enum Scope { USER, CITY, ALL }
+
+    private static final String WATERMARK = "recycle_entries";
+    private static final String UPSERT = "INSERT INTO recycle_rollups(period, scope, scope_key, category, bucket, entries, total_kg) " +
+            "VALUES(?,?,?,?,?,?,?) ON CONFLICT(period, scope, scope_key, category, bucket) DO UPDATE SET " +
+            "entries = entries + excluded.entries, total_kg = total_kg + excluded.total_kg";
+
+    private final Database db;
+
+    public RollupDao(Database db) {
+        this.db = db;
+    }
+
+    /**
+     * The series for one scope ({@code key} is the user id or city; ignored for ALL), oldest
+     * bucket first, from {@code fromBucket} (yyyy-MM-dd) on. {@code category} null sums all
+     * categories.
+     */
+    public List<RollupPoint> series(Period period, Scope scope, String key, String category, String fromBucket) {
+        String sql = "SELECT bucket, SUM(entries), SUM(total_kg) FROM recycle_rollups " +
+                "WHERE period = ? AND scope = ? AND scope_key = ?" + (category != null ? " AND category = ?" : "") +
+                " AND bucket >= ? GROUP BY bucket ORDER BY bucket";
+        List<RollupPoint> list = new ArrayList<>();
+        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            int idx = 1;
+            ps.setString(idx++, period.name());
+            ps.setString(idx++, scope.name());
+            ps.setString(idx++, scope == Scope.ALL ? "" : key);
+            if (category != null) {
+                ps.setString(idx++, category);
+            }
+            ps.setString(idx, fromBucket);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new RollupPoint(rs.getString(1), rs.getInt(2), rs.getDouble(3)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return list;
+    }
+
+    /**
+     * Folds up to {@code limit} entries past the watermark into the rollups and moves the
+     * watermark, in one write transaction. Returns the number of entries processed (0 once
+     * caught up).
+     */
+    public int rollUpNext(int limit) {
+        return db.writeAndWait(c -> {
+            long watermark = watermark(c);
+            Map<List<String>, double[]> deltas = new HashMap<>();
+            long last = watermark;
+            int count = 0;
+            String sql = "SELECT e.id, e.user_id, u.city, e.category, e.weight_kg, e.created_at " +
+                    "FROM recycle_entries e LEFT JOIN users u ON u.id = e.user_id WHERE e.id > ? ORDER BY e.id LIMIT ?";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, watermark);
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        last = rs.getLong(1);
+                        collect(deltas, rs.getLong(2), rs.getString(3), rs.getString(4), rs.getLong(6), 1, rs.getDouble(5));
+                        count++;
+                    }
+                }
+            }
+            if (count == 0) {
+                return 0;
+            }
+            apply(c, deltas);
+            try (PreparedStatement ps = c.prepareStatement(
+                    "INSERT INTO rollup_watermarks(name, last_id) VALUES(?, ?) ON CONFLICT(name) DO UPDATE SET last_id = excluded.last_id")) {
+                ps.setString(1, WATERMARK);
+                ps.setLong(2, last);
+                ps.executeUpdate();
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Moves an edited entry's old weight/category to the new one in the rollups, on the caller's
+     * connection. Entries past the watermark are skipped; the next roll-up counts their new values.
+     */
+    void entryChanged(Connection c, String oldCategory, double oldWeightKg, RecycleEntry updated) throws SQLException {
+        if (updated.getId() > watermark(c)) {
+            return;
+        }
+        String city = null;
+        try (PreparedStatement ps = c.prepareStatement("SELECT city FROM users WHERE id = ?")) {
+            ps.setLong(1, updated.getUserId());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    city = rs.getString(1);
+                }
+            }
+        }
+        Map<List<String>, double[]> deltas = new HashMap<>();
+        collect(deltas, updated.getUserId(), city, oldCategory, updated.getCreatedAt(), -1, -oldWeightKg);
+        collect(deltas, updated.getUserId(), city, updated.getCategory(), updated.getCreatedAt(), 1, updated.getWeightKg());
+        apply(c, deltas);
+    }
+
+    private static long watermark(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT last_id FROM rollup_watermarks WHERE name = ?")) {
+            ps.setString(1, WATERMARK);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Adds one entry's contribution to every (period, scope) row it belongs to
+    private static void collect(Map<List<String>, double[]> deltas, long userId, String city, String category,
+                                long createdAt, int entries, double kg) {
+        LocalDate day = Instant.ofEpochMilli(createdAt).atZone(ZoneId.systemDefault()).toLocalDate();
+        for (Period period : Period.values()) {
+            String bucket = bucketStart(period, day).toString();
+            add(deltas, List.of(period.name(), Scope.USER.name(), Long.toString(userId), category, bucket), entries, kg);
+            if (city != null) {
+                add(deltas, List.of(period.name(), Scope.CITY.name(), city, category, bucket), entries, kg);
+            }
+            add(deltas, List.of(period.name(), Scope.ALL.name(), "", category, bucket), entries, kg);
+        }
+    }
+
+    private static void add(Map<List<String>, double[]> deltas, List<String> key, int entries, double kg) {
+        double[] d = deltas.computeIfAbsent(key, k -> new double[2]);
+        d[0] += entries;
+        d[1] += kg;
+    }
+
+    private static void apply(Connection c, Map<List<String>, double[]> deltas) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(UPSERT)) {
+            for (Map.Entry<List<String>, double[]> e : deltas.entrySet()) {
+                List<String> key = e.getKey();
+                if (e.getValue()[0] == 0 && e.getValue()[1] == 0) {
+                    continue;
+                }
+                for (int i = 0; i < key.size(); i++) {
+                    ps.setString(i + 1, key.get(i));
+                }
+                ps.setInt(6, (int) e.getValue()[0]);
+                ps.setDouble(7, e.getValue()[1]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    public static LocalDate bucketStart(Period period, LocalDate day) {
+        switch (period) {
+            case WEEK:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return day.withDayOfMonth(1);
+            default:
+                return day;
+        }
+    }
+}
@@ -14,32 +14,6 @@ public class SpotDao {
         this.db = db;
     }
 
-    public void seedIfEmpty() {
-        String countSql = "SELECT COUNT(*) FROM spots";
-        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
-            try (ResultSet rs = st.executeQuery(countSql)) {
-                if (rs.next() && rs.getInt(1) == 0) {
-                    String ins = "INSERT INTO spots(name, address, city) VALUES(?,?,?)";
-                    try (PreparedStatement ps = c.prepareStatement(ins)) {
-                        insertSpot(ps, "Green Cycle Center", "123 Park St", "Metro City");
-                        insertSpot(ps, "Eco DropPoint", "45 River Ave", "Metro City");
-                        insertSpot(ps, "Reclaim Hub", "9 Sunset Blvd", "Metro City");
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private void insertSpot(PreparedStatement ps, String name, String address, String city) throws SQLException {
-        ps.setString(1, name);
-        ps.setString(2, address);
-        ps.setString(3, city);
-        ps.addBatch();
-        ps.executeBatch();
-    }
-
     public List<Spot> listAll() {
         String sql = "SELECT id, name, address, city FROM spots ORDER BY city, name";
         List<Spot> list = new ArrayList<>();
@@ -0,0 +1,138 @@
+package com.recyclingquest.dao;
+
+import com.recyclingquest.db.Database;
+import com.recyclingquest.model.CategoryStats;
+import com.recyclingquest.model.RecycleEntry;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user, per-category totals (entry count, kg, last activity) in user_stats, so dashboards read
+ * a handful of rows by primary key instead of aggregating recycle_entries. RecycleDao keeps the
+ * table current in the same transaction as every insert and update; {@link #rebuild()} recomputes
+ * it from scratch if it ever drifts.
+ */
+public class StatsDao {
+    private static final String UPSERT = "INSERT INTO user_stats(user_id, category, entries, total_kg, last_at) VALUES(?,?,?,?,?) " +
+            "ON CONFLICT(user_id, category) DO UPDATE SET entries = entries + excluded.entries, " +
+            "total_kg = total_kg + excluded.total_kg, last_at = MAX(last_at, excluded.last_at)";
+
+    private final Database db;
+
+    public StatsDao(Database db) {
+        this.db = db;
+    }
+
+    /**
+     * The user's totals per category, by category name.
+     */
+    public List<CategoryStats> getStats(long userId) {
+        String sql = "SELECT user_id, category, entries, total_kg, last_at FROM user_stats WHERE user_id = ? ORDER BY category";
+        List<CategoryStats> list = new ArrayList<>();
+        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new CategoryStats(
+                            rs.getLong("user_id"),
+                            rs.getString("category"),
+                            rs.getInt("entries"),
+                            rs.getDouble("total_kg"),
+                            rs.getLong("last_at")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return list;
+    }
+
+    /**
+     * Recomputes every user's totals from recycle_entries in one transaction and returns the
+     * number of rows written.
+     */
+    public int rebuild() {
+        return db.writeAndWait(c -> {
+            try (Statement st = c.createStatement()) {
+                st.executeUpdate("DELETE FROM user_stats");
+                return st.executeUpdate("INSERT INTO user_stats(user_id, category, entries, total_kg, last_at) " +
+                        "SELECT user_id, category, COUNT(*), SUM(weight_kg), MAX(created_at) " +
+                        "FROM recycle_entries GROUP BY user_id, category");
+            }
+        });
+    }
+
+    /**
+     * Counts a newly inserted entry, on the caller's connection.
+     */
+    void entryAdded(Connection c, RecycleEntry e) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(UPSERT)) {
+            bind(ps, e.getUserId(), e.getCategory(), 1, e.getWeightKg(), e.getCreatedAt());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Counts a batch of inserted entries with one upsert per (user, category) in the batch.
+     */
+    void entriesAdded(Connection c, List<RecycleEntry> entries) throws SQLException {
+        Map<String, CategoryStats> deltas = new LinkedHashMap<>();
+        for (RecycleEntry e : entries) {
+            deltas.merge(e.getUserId() + "\u0000" + e.getCategory(),
+                    new CategoryStats(e.getUserId(), e.getCategory(), 1, e.getWeightKg(), e.getCreatedAt()),
+                    (a, b) -> new CategoryStats(a.getUserId(), a.getCategory(), a.getEntries() + 1,
+                            a.getTotalKg() + b.getTotalKg(), Math.max(a.getLastAt(), b.getLastAt())));
+        }
+        try (PreparedStatement ps = c.prepareStatement(UPSERT)) {
+            for (CategoryStats d : deltas.values()) {
+                bind(ps, d.getUserId(), d.getCategory(), d.getEntries(), d.getTotalKg(), d.getLastAt());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Applies an edit of an entry that used to be {@code oldCategory}/{@code oldWeightKg}.
+     * Moving an entry out of a category recomputes that category's last activity from the user's
+     * remaining entries (an index range scan over one user) and drops the row once it is empty.
+     */
+    void entryChanged(Connection c, String oldCategory, double oldWeightKg, RecycleEntry updated) throws SQLException {
+        if (oldCategory.equals(updated.getCategory())) {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "UPDATE user_stats SET total_kg = total_kg + ? WHERE user_id = ? AND category = ?")) {
+                ps.setDouble(1, updated.getWeightKg() - oldWeightKg);
+                ps.setLong(2, updated.getUserId());
+                ps.setString(3, oldCategory);
+                ps.executeUpdate();
+            }
+            return;
+        }
+        entryAdded(c, updated);
+        try (PreparedStatement ps = c.prepareStatement("UPDATE user_stats SET entries = entries - 1, total_kg = total_kg - ?1, " +
+                "last_at = COALESCE((SELECT MAX(created_at) FROM recycle_entries WHERE user_id = ?2 AND category = ?3), 0) " +
+                "WHERE user_id = ?2 AND category = ?3")) {
+            ps.setDouble(1, oldWeightKg);
+            ps.setLong(2, updated.getUserId());
+            ps.setString(3, oldCategory);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = c.prepareStatement("DELETE FROM user_stats WHERE user_id = ? AND category = ? AND entries <= 0")) {
+            ps.setLong(1, updated.getUserId());
+            ps.setString(2, oldCategory);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement ps, long userId, String category, int entries, double kg, long lastAt) throws SQLException {
+        ps.setLong(1, userId);
+        ps.setString(2, category);
+        ps.setInt(3, entries);
+        ps.setDouble(4, kg);
+        ps.setLong(5, lastAt);
+    }
+}
@@ -16,15 +16,15 @@ public class TradeDao {
 
     public void insert(TradeEntry e) {
         String sql = "INSERT INTO trade_entries(user_id, item, amount, created_at) VALUES(?,?,?,?)";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, e.getUserId());
-            ps.setString(2, e.getItem());
-            ps.setDouble(3, e.getAmount());
-            ps.setLong(4, e.getCreatedAt());
-            ps.executeUpdate();
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        db.writeAndWait(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, e.getUserId());
+                ps.setString(2, e.getItem());
+                ps.setDouble(3, e.getAmount());
+                ps.setLong(4, e.getCreatedAt());
+                return ps.executeUpdate();
+            }
+        });
     }
 
     public List<TradeEntry> listByUser(long userId) {
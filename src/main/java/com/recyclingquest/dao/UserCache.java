@@ -0,0 +1,165 @@
+package com.recyclingquest.dao;
+
+import com.recyclingquest.model.User;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of users keyed by id, with nickname and email indexes pointing at the id.
+ * Callers always get a copy, so nothing outside can change a cached user. A capacity of 0
+ * disables caching (every lookup is a miss and nothing is stored).
+ *
+ * A row read from the database on a miss is only cached if no change to that user was committed
+ * while it was being read: {@link #startLoad()} takes the current generation, every change bumps
+ * it and remembers the generation per user for as long as loads are in flight, and
+ * {@link #finishLoad(long, User)} drops a row that is older than the user's last change.
+ */
+public class UserCache {
+    private final int capacity;
+    private final LinkedHashMap<Long, User> byId;
+    private final Map<String, Long> byNickname = new HashMap<>();
+    private final Map<String, Long> byEmail = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long generation;
+    private int loading;
+    // User id -> generation of its last change; only kept while a load is in flight
+    private final Map<Long, Long> changedAt = new HashMap<>();
+
+    public UserCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, User> eldest) {
+                if (size() > UserCache.this.capacity) {
+                    unindex(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    synchronized User getById(long id) {
+        return record(byId.get(id));
+    }
+
+    synchronized User getByNickname(String nickname) {
+        Long id = nickname == null ? null : byNickname.get(nickname);
+        return record(id == null ? null : byId.get(id));
+    }
+
+    synchronized User getByEmail(String email) {
+        Long id = email == null ? null : byEmail.get(email);
+        return record(id == null ? null : byId.get(id));
+    }
+
+    /**
+     * Call before reading a user from the database; pass the result to {@link #finishLoad}.
+     */
+    synchronized long startLoad() {
+        loading++;
+        return generation;
+    }
+
+    /**
+     * Caches {@code user} (null if the read found nothing or failed) unless it changed after
+     * the matching {@link #startLoad()}.
+     */
+    synchronized void finishLoad(long startedAt, User user) {
+        loading--;
+        Long changed = user == null ? null : changedAt.get(user.getId());
+        if (loading == 0) {
+            changedAt.clear();
+        }
+        if (changed == null || changed <= startedAt) {
+            put(user);
+        }
+    }
+
+    synchronized void put(User user) {
+        if (capacity == 0 || user == null) return;
+        User copy = copy(user);
+        User old = byId.put(copy.getId(), copy);
+        if (old != null) {
+            unindex(old);
+        }
+        if (copy.getNickname() != null) byNickname.put(copy.getNickname(), copy.getId());
+        if (copy.getEmail() != null) byEmail.put(copy.getEmail(), copy.getId());
+    }
+
+    /**
+     * Writes a committed points total through to the cached user, if it is cached.
+     */
+    synchronized void updatePoints(long id, int points) {
+        changed(id);
+        User cached = byId.get(id);
+        if (cached != null) {
+            cached.setPoints(points);
+        }
+    }
+
+    synchronized void invalidate(long id) {
+        changed(id);
+        User old = byId.remove(id);
+        if (old != null) {
+            unindex(old);
+        }
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        byNickname.clear();
+        byEmail.clear();
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "UserCache{capacity=" + capacity + ", size=" + size() +
+                ", hits=" + hits.get() + ", misses=" + misses.get() + "}";
+    }
+
+    private void changed(long id) {
+        generation++;
+        if (loading > 0) {
+            changedAt.put(id, generation);
+        }
+    }
+
+    private User record(User cached) {
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(cached);
+    }
+
+    private void unindex(User user) {
+        if (user.getNickname() != null) byNickname.remove(user.getNickname(), user.getId());
+        if (user.getEmail() != null) byEmail.remove(user.getEmail(), user.getId());
+    }
+
+    private static User copy(User u) {
+        return new User(u.getId(), u.getNickname(), u.getAvatar(), u.getCity(), u.getPoints(), u.getEmail(), u.getPassword());
+    }
+}
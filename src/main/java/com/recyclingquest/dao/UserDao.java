@@ -4,97 +4,210 @@ import com.recyclingquest.db.Database;
 import com.recyclingquest.model.User;
 
 import java.sql.*;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class UserDao {
+    /**
+     * Told a user's committed points total on the database writer thread, in commit order, right
+     * after the commit. Implementations must be quick and must not wait on writes.
+     */
+    public interface PointsListener {
+        void pointsChanged(long userId, int points);
+    }
+
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
     private final Database db;
+    private final UserCache cache;
+    private final List<PointsListener> pointsListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * Uses a user cache sized by the recyclingquest.userCache.size property (0 disables it).
+     */
     public UserDao(Database db) {
+        this(db, new UserCache(Integer.getInteger("recyclingquest.userCache.size", DEFAULT_CACHE_SIZE)));
+    }
+
+    public UserDao(Database db, UserCache cache) {
         this.db = db;
+        this.cache = cache;
+    }
+
+    public UserCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Listeners hear about new accounts (with 0 points) and every committed points change.
+     */
+    public void addPointsListener(PointsListener listener) {
+        pointsListeners.add(listener);
     }
 
+    public void removePointsListener(PointsListener listener) {
+        pointsListeners.remove(listener);
+    }
+
+    /**
+     * Inserts a user. {@code password} is stored as given, so pass a hash from
+     * {@link com.recyclingquest.security.CredentialService#hash(String)}.
+     */
     public User create(String nickname, String avatar, String city, String email, String password) {
-        // Normalize email to lowercase to avoid case-sensitive mismatches
-        if (email != null) {
-            email = email.trim().toLowerCase();
-        }
         String sql = "INSERT INTO users(nickname, avatar, city, points, email, password) VALUES(?,?,?,0,?,?)";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, nickname);
-            ps.setString(2, avatar);
-            ps.setString(3, city);
-            ps.setString(4, email);
-            ps.setString(5, password);
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    long id = rs.getLong(1);
-                    return new User(id, nickname, avatar, city, 0, email, password);
+        // Normalize email to lowercase to avoid case-sensitive mismatches
+        String normalizedEmail = User.normalizeEmail(email);
+        User created = db.writeAndWait(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, nickname);
+                ps.setString(2, avatar);
+                ps.setString(3, city);
+                ps.setString(4, normalizedEmail);
+                ps.setString(5, password);
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        User user = new User(rs.getLong(1), nickname, avatar, city, 0, normalizedEmail, password);
+                        db.afterCommit(() -> {
+                            cache.put(user);
+                            firePointsChanged(user.getId(), 0);
+                        });
+                        return user;
+                    }
                 }
             }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+            return null;
+        });
+        if (created == null) {
+            throw new RuntimeException("Failed to create user");
         }
-        throw new RuntimeException("Failed to create user");
+        return created;
     }
 
     public Optional<User> findByNickname(String nickname) {
-        String sql = "SELECT id, nickname, avatar, city, points, email, password FROM users WHERE nickname = ?";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, nickname);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapUser(rs));
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        User cached = cache.getByNickname(nickname);
+        if (cached != null) {
+            return Optional.of(cached);
         }
-        return Optional.empty();
+        String sql = "SELECT id, nickname, avatar, city, points, email, password FROM users WHERE nickname = ?";
+        return load(sql, ps -> ps.setString(1, nickname));
     }
 
     public Optional<User> findByEmail(String email) {
         if (email == null) return Optional.empty();
-        email = email.trim().toLowerCase();
-        // Case-insensitive lookup on email
-        String sql = "SELECT id, nickname, avatar, city, points, email, password FROM users WHERE LOWER(email) = LOWER(?)";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, email);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapUser(rs));
-                }
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        String normalized = User.normalizeEmail(email);
+        User cached = cache.getByEmail(normalized);
+        if (cached != null) {
+            return Optional.of(cached);
         }
-        return Optional.empty();
+        // Emails are stored lowercased, so a plain equality can use idx_users_email
+        String sql = "SELECT id, nickname, avatar, city, points, email, password FROM users WHERE email = ?";
+        return load(sql, ps -> ps.setString(1, normalized));
+    }
+
+    /**
+     * Resolves a login identifier that may be an email or a nickname in one indexed query.
+     * An email match wins over a nickname match.
+     */
+    public Optional<User> findByLogin(String identifier) {
+        if (identifier == null) return Optional.empty();
+        String nickname = identifier.trim();
+        String email = User.normalizeEmail(nickname);
+        User cached = cache.getByEmail(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        String sql = "SELECT id, nickname, avatar, city, points, email, password FROM users " +
+                "WHERE email = ?1 OR nickname = ?2 ORDER BY CASE WHEN email = ?1 THEN 0 ELSE 1 END LIMIT 1";
+        return load(sql, ps -> {
+            ps.setString(1, email);
+            ps.setString(2, nickname);
+        });
     }
 
     public Optional<User> findById(long id) {
+        User cached = cache.getById(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         String sql = "SELECT id, nickname, avatar, city, points, email, password FROM users WHERE id = ?";
-        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, id);
+        return load(sql, ps -> ps.setLong(1, id));
+    }
+
+    public void updatePassword(long userId, String password) {
+        String sql = "UPDATE users SET password = ? WHERE id = ?";
+        db.writeAndWait(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, password);
+                ps.setLong(2, userId);
+                return ps.executeUpdate();
+            }
+        });
+        cache.invalidate(userId);
+    }
+
+    public void addPoints(long userId, int delta) {
+        db.writeAndWait(c -> addPoints(c, userId, delta));
+    }
+
+    /**
+     * Adds points inside a write job and returns the new total, or empty if the user does not exist.
+     * The cache and the points listeners are only told once the job's transaction commits.
+     */
+    public OptionalInt addPoints(Connection c, long userId, int delta) throws SQLException {
+        String sql = "UPDATE users SET points = points + ? WHERE id = ? RETURNING points";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, delta);
+            ps.setLong(2, userId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapUser(rs));
+                    int total = rs.getInt(1);
+                    db.afterCommit(() -> pointsCommitted(userId, total));
+                    return OptionalInt.of(total);
                 }
             }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
         }
-        return Optional.empty();
+        return OptionalInt.empty();
     }
 
-    public void addPoints(long userId, int delta) {
-        String sql = "UPDATE users SET points = points + ? WHERE id = ?";
+    // Writes a committed points total through to the cache and tells the points listeners
+    private void pointsCommitted(long userId, int points) {
+        cache.updatePoints(userId, points);
+        firePointsChanged(userId, points);
+    }
+
+    private void firePointsChanged(long userId, int points) {
+        for (PointsListener l : pointsListeners) {
+            l.pointsChanged(userId, points);
+        }
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Reads at most one user on a pooled connection and caches it, unless the user changed while
+     * it was being read. The cache keeps its own copy, so the returned instance is the caller's.
+     */
+    private Optional<User> load(String sql, Binder binder) {
+        long startedAt = cache.startLoad();
+        User found = null;
         try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, delta);
-            ps.setLong(2, userId);
-            ps.executeUpdate();
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    found = mapUser(rs);
+                }
+            }
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            cache.finishLoad(startedAt, found);
         }
+        return Optional.ofNullable(found);
     }
 
     private User mapUser(ResultSet rs) throws SQLException {
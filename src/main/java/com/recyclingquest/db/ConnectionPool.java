@@ -0,0 +1,175 @@
+package com.recyclingquest.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of physical SQLite connections. PRAGMAs are applied once when a physical
+ * connection is opened; callers get a lease whose close() returns it to the pool.
+ */
+class ConnectionPool {
+    interface Opener {
+        Connection open() throws SQLException;
+    }
+
+    private final Opener opener;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    // LIFO so the most recently used (warm) connection is handed out first
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    ConnectionPool(Opener opener, int maxSize, long maxWaitMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.opener = opener;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    Connection lease() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        if (!permits.tryAcquire()) {
+            long start = System.nanoTime();
+            waits.incrementAndGet();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            } finally {
+                waitNanos.addAndGet(System.nanoTime() - start);
+            }
+            if (!acquired) {
+                throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+            }
+        }
+
+        Connection physical = idle.pollFirst();
+        try {
+            if (physical != null && physical.isClosed()) {
+                open.decrementAndGet();
+                physical = null;
+            }
+            if (physical == null) {
+                misses.incrementAndGet();
+                physical = opener.open();
+                open.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return wrap(physical);
+    }
+
+    private void release(Connection physical) {
+        boolean reusable = !closed;
+        try {
+            if (physical.isClosed()) {
+                reusable = false;
+            } else if (!physical.getAutoCommit()) {
+                // Never hand out a connection with a transaction left open
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        if (reusable) {
+            idle.offerFirst(physical);
+        } else {
+            closeQuietly(physical);
+        }
+        permits.release();
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Lease(physical));
+    }
+
+    PoolStats stats() {
+        return new PoolStats(maxSize, open.get(), idle.size(), hits.get(), misses.get(), waits.get(),
+                TimeUnit.NANOSECONDS.toMillis(waitNanos.get()));
+    }
+
+    void close() {
+        closed = true;
+        Connection c;
+        while ((c = idle.pollFirst()) != null) {
+            closeQuietly(c);
+        }
+    }
+
+    private void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // Nothing useful to do if the driver fails to close
+        }
+        open.decrementAndGet();
+    }
+
+    private final class Lease implements InvocationHandler {
+        private final Connection physical;
+        private boolean returned;
+
+        Lease(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
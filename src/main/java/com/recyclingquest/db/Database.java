@@ -5,20 +5,107 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class Database {
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 5000;
+
     private final String url;
+    private final ConnectionPool pool;
+    private final WriteQueue writer;
 
     public Database() {
-        String baseDir = System.getProperty("user.dir") + File.separator + "data";
-        File dir = new File(baseDir);
+        this(defaultUrl(),
+                Integer.getInteger("recyclingquest.db.poolSize", DEFAULT_POOL_SIZE),
+                Long.getLong("recyclingquest.db.maxWaitMillis", DEFAULT_MAX_WAIT_MILLIS));
+    }
+
+    public Database(String url, int poolSize, long maxWaitMillis) {
+        this.url = url;
+        this.pool = new ConnectionPool(this::openConnection, poolSize, maxWaitMillis);
+        this.writer = new WriteQueue(this::openConnection);
+    }
+
+    private static String defaultUrl() {
+        return "jdbc:sqlite:" + dataDir() + File.separator + "recycling.db";
+    }
+
+    /**
+     * The app's data directory ({@code data/} under the working directory), created if missing.
+     * Everything the app persists (database, caches, stored photos) lives under it.
+     */
+    public static File dataDir() {
+        File dir = new File(System.getProperty("user.dir") + File.separator + "data");
         if (!dir.exists()) {
             dir.mkdirs();
         }
-        this.url = "jdbc:sqlite:" + baseDir + File.separator + "recycling.db";
+        return dir;
     }
 
+    /**
+     * Leases a pooled connection. Closing it hands the physical connection back to the pool.
+     */
     public Connection getConnection() throws SQLException {
+        return pool.lease();
+    }
+
+    /**
+     * Queues a write on the single writer connection. The future completes once the
+     * transaction containing the job has committed.
+     */
+    public <T> CompletableFuture<T> write(WriteJob<T> job) {
+        return writer.submit(job);
+    }
+
+    /**
+     * Runs {@code hook} on the writer thread once the transaction of the calling write job has
+     * committed, before the job's future completes. Hooks of all jobs run in commit order; a job
+     * that fails drops its hooks. Only callable from inside a {@link WriteJob}. Hooks must be quick
+     * and must not wait on writes.
+     */
+    public void afterCommit(Runnable hook) {
+        writer.afterCommit(hook);
+    }
+
+    /**
+     * Same as {@link #write(WriteJob)} but blocks for the result, rethrowing failures the
+     * way the DAOs always have (SQLExceptions wrapped in a RuntimeException).
+     */
+    public <T> T writeAndWait(WriteJob<T> job) {
+        try {
+            return writer.submit(job).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    public PoolStats getPoolStats() {
+        return pool.stats();
+    }
+
+    public long getCommittedWriteBatches() {
+        return writer.committedBatches();
+    }
+
+    public long getCommittedWriteJobs() {
+        return writer.committedJobs();
+    }
+
+    public void close() {
+        writer.close();
+        pool.close();
+    }
+
+    Connection openConnection() throws SQLException {
         Connection conn = DriverManager.getConnection(url);
         // Configure connection to reduce locking issues and enforce constraints
         try (Statement st = conn.createStatement()) {
@@ -1,95 +1,344 @@
 package com.recyclingquest.db;
 
+import com.recyclingquest.model.User;
+
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Ordered, versioned schema steps. The applied version is kept in schema_version, so startup on
+ * an up-to-date database is a single version read. Each pending step runs in its own write
+ * transaction together with the row recording it. Steps 1-4 reproduce the schema the old
+ * run-everything migrations produced and are idempotent, so legacy databases (no schema_version
+ * yet) go through them safely once. Never edit a released step; append a new one.
+ */
 public class Migrations {
+    private interface Body {
+        void apply(Connection c, Statement st) throws SQLException;
+    }
+
+    private static final class Step {
+        final int version;
+        final String description;
+        final Body body;
+
+        Step(int version, String description, Body body) {
+            this.version = version;
+            this.description = description;
+            this.body = body;
+        }
+    }
+
+    private static final List<Step> STEPS = List.of(
+            new Step(1, "base schema", Migrations::baseSchema),
+            new Step(2, "coupon tiers", Migrations::couponTiers),
+            new Step(3, "history paging index", Migrations::historyIndex),
+            new Step(4, "normalized user emails", Migrations::normalizedEmails),
+            new Step(5, "seed recycling spots", Migrations::seedSpots),
+            new Step(6, "stored photo hashes", Migrations::photoHashes),
+            new Step(7, "per-user statistics", Migrations::userStats),
+            new Step(8, "leaderboard indexes", Migrations::leaderboardIndexes),
+            new Step(9, "recycling rollups", Migrations::rollups),
+            new Step(10, "locale-independent user emails", Migrations::localeIndependentEmails)
+    );
+
     public static void run(Database db) {
-        try (Connection conn = db.getConnection(); Statement st = conn.createStatement()) {
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS users (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "nickname TEXT NOT NULL UNIQUE," +
-                    "avatar TEXT," +
-                    "city TEXT," +
-                    "points INTEGER NOT NULL DEFAULT 0" +
-                    ")");
-
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS recycle_entries (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "user_id INTEGER NOT NULL," +
-                    "category TEXT NOT NULL," +
-                    "weight_kg REAL NOT NULL," +
-                    "photo_path TEXT," +
-                    "created_at INTEGER NOT NULL," +
-                    "FOREIGN KEY(user_id) REFERENCES users(id)" +
-                    ")");
-
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS trade_entries (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "user_id INTEGER NOT NULL," +
-                    "item TEXT NOT NULL," +
-                    "amount REAL NOT NULL," +
-                    "created_at INTEGER NOT NULL," +
-                    "FOREIGN KEY(user_id) REFERENCES users(id)" +
-                    ")");
-
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS spots (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "name TEXT NOT NULL," +
-                    "address TEXT NOT NULL," +
-                    "city TEXT NOT NULL" +
-                    ")");
-
-            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_recycle_user ON recycle_entries(user_id)");
-            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_trade_user ON trade_entries(user_id)");
-
-            // Coupons table for collaboration rewards
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS coupons (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "level_required TEXT NOT NULL," +
-                    "company_name TEXT NOT NULL," +
-                    "description TEXT," +
-                    "discount TEXT," +
-                    "coupon_code TEXT," +
-                    "expiry_date TEXT," +
-                    "is_claimed INTEGER NOT NULL DEFAULT 0," +
-                    "logo_url TEXT" +
-                    ")");
-
-            // Seed dummy coupons if empty
-            try (ResultSet rs = st.executeQuery("SELECT COUNT(1) AS n FROM coupons")) {
-                if (rs.next() && rs.getInt("n") == 0) {
-                    st.executeUpdate("INSERT INTO coupons(level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url) VALUES" +
-                            "('Bronze','Eco Cafe','10% off on any drink','10% OFF','BRONZE10','2030-12-31',0,'https://example.com/cafe.png')," +
-                            "('Silver','Green Threads','15% off on apparel','15% OFF','SILVER15','2030-12-31',0,'https://example.com/threads.png')," +
-                            "('Gold','Eco Mart','₹500 voucher on orders over ₹2000','₹500 Voucher','GOLD500','2030-12-31',0,'https://example.com/ecomart.png')," +
-                            "('Green Hero','Earth NGO','VIP pass to annual eco event','Event Pass','HERO-EVENT','2030-12-31',0,'https://example.com/ngo.png')");
-                }
+        int current = currentVersion(db);
+        int latest = STEPS.get(STEPS.size() - 1).version;
+        if (current >= latest) {
+            return;
+        }
+        db.writeAndWait(c -> {
+            try (Statement st = c.createStatement()) {
+                st.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INTEGER PRIMARY KEY," +
+                        "description TEXT NOT NULL," +
+                        "applied_at INTEGER NOT NULL" +
+                        ")");
             }
-            ensureColumn(conn, "users", "email", "ALTER TABLE users ADD COLUMN email TEXT");
-            ensureColumn(conn, "users", "password", "ALTER TABLE users ADD COLUMN password TEXT");
-
-            // User coupons table to track redeemed coupons
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS user_coupons (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "user_id INTEGER NOT NULL," +
-                    "coupon_id INTEGER NOT NULL," +
-                    "redeemed_at INTEGER NOT NULL," +
-                    "FOREIGN KEY(user_id) REFERENCES users(id)," +
-                    "FOREIGN KEY(coupon_id) REFERENCES coupons(id)" +
-                    ")");
-            st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_user_coupons_user ON user_coupons(user_id)");
-
-            // Ensure unique index on email (ignore NULL emails)
-            try (Statement s = conn.createStatement()) {
-                s.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS idx_users_email ON users(email)");
-            } catch (SQLException ignored) {
-                // Some SQLite builds allow partial indexes; if needed, fallback without WHERE clause already above
+            return null;
+        });
+        for (Step step : STEPS) {
+            if (step.version <= current) {
+                continue;
             }
+            boolean applied = db.writeAndWait(c -> {
+                // Re-check inside the transaction in case another instance got here first
+                if (readVersion(c) >= step.version) {
+                    return false;
+                }
+                try (Statement st = c.createStatement()) {
+                    step.body.apply(c, st);
+                }
+                try (PreparedStatement ps = c.prepareStatement(
+                        "INSERT INTO schema_version(version, description, applied_at) VALUES(?,?,?)")) {
+                    ps.setInt(1, step.version);
+                    ps.setString(2, step.description);
+                    ps.setLong(3, System.currentTimeMillis());
+                    ps.executeUpdate();
+                }
+                return true;
+            });
+            if (applied) {
+                System.out.println("Applied migration " + step.version + ": " + step.description);
+            }
+        }
+    }
+
+    private static int currentVersion(Database db) {
+        try (Connection c = db.getConnection()) {
+            return readVersion(c);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static int readVersion(Connection c) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            // No schema_version table yet: a new or legacy database
+            if (e.getMessage() != null && e.getMessage().contains("no such table")) {
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private static void baseSchema(Connection conn, Statement st) throws SQLException {
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS users (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "nickname TEXT NOT NULL UNIQUE," +
+                "avatar TEXT," +
+                "city TEXT," +
+                "points INTEGER NOT NULL DEFAULT 0" +
+                ")");
+
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS recycle_entries (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "user_id INTEGER NOT NULL," +
+                "category TEXT NOT NULL," +
+                "weight_kg REAL NOT NULL," +
+                "photo_path TEXT," +
+                "created_at INTEGER NOT NULL," +
+                "FOREIGN KEY(user_id) REFERENCES users(id)" +
+                ")");
+
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS trade_entries (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "user_id INTEGER NOT NULL," +
+                "item TEXT NOT NULL," +
+                "amount REAL NOT NULL," +
+                "created_at INTEGER NOT NULL," +
+                "FOREIGN KEY(user_id) REFERENCES users(id)" +
+                ")");
+
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS spots (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "name TEXT NOT NULL," +
+                "address TEXT NOT NULL," +
+                "city TEXT NOT NULL" +
+                ")");
+
+        st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_trade_user ON trade_entries(user_id)");
+
+        // Coupons table for collaboration rewards
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS coupons (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "level_required TEXT NOT NULL," +
+                "company_name TEXT NOT NULL," +
+                "description TEXT," +
+                "discount TEXT," +
+                "coupon_code TEXT," +
+                "expiry_date TEXT," +
+                "is_claimed INTEGER NOT NULL DEFAULT 0," +
+                "logo_url TEXT" +
+                ")");
+
+        // Seed dummy coupons if empty
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(1) AS n FROM coupons")) {
+            if (rs.next() && rs.getInt("n") == 0) {
+                st.executeUpdate("INSERT INTO coupons(level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed, logo_url) VALUES" +
+                        "('Bronze','Eco Cafe','10% off on any drink','10% OFF','BRONZE10','2030-12-31',0,'https://example.com/cafe.png')," +
+                        "('Silver','Green Threads','15% off on apparel','15% OFF','SILVER15','2030-12-31',0,'https://example.com/threads.png')," +
+                        "('Gold','Eco Mart','₹500 voucher on orders over ₹2000','₹500 Voucher','GOLD500','2030-12-31',0,'https://example.com/ecomart.png')," +
+                        "('Green Hero','Earth NGO','VIP pass to annual eco event','Event Pass','HERO-EVENT','2030-12-31',0,'https://example.com/ngo.png')");
+            }
+        }
+        ensureColumn(conn, "users", "email", "ALTER TABLE users ADD COLUMN email TEXT");
+        ensureColumn(conn, "users", "password", "ALTER TABLE users ADD COLUMN password TEXT");
+
+        // User coupons table to track redeemed coupons
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS user_coupons (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                "user_id INTEGER NOT NULL," +
+                "coupon_id INTEGER NOT NULL," +
+                "redeemed_at INTEGER NOT NULL," +
+                "FOREIGN KEY(user_id) REFERENCES users(id)," +
+                "FOREIGN KEY(coupon_id) REFERENCES coupons(id)" +
+                ")");
+        st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_user_coupons_user ON user_coupons(user_id)");
+    }
+
+    private static void couponTiers(Connection conn, Statement st) throws SQLException {
+        // Reward tiers: points needed and the coupon each one unlocks
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS coupon_tiers (" +
+                "points INTEGER PRIMARY KEY," +
+                "description TEXT NOT NULL," +
+                "discount TEXT NOT NULL," +
+                "code_prefix TEXT NOT NULL" +
+                ")");
+        st.executeUpdate("INSERT OR IGNORE INTO coupon_tiers(points, description, discount, code_prefix) VALUES" +
+                "(20,'5% off Recycled Stationery','5% OFF','STAT5')," +
+                "(40,'10% off Eco Toiletries','10% OFF','TOIL10')," +
+                "(70,'15% off Recycled T-shirt','15% OFF','TSHIRT15')," +
+                "(100,'Free Eco Tote Bag','FREE','TOTE')," +
+                "(150,'20% off LED Bulb','20% OFF','LED20')," +
+                "(250,'Plant a Tree Certificate','Certificate','TREE')," +
+                "(400,'30% off on eco products','30% OFF','ECO30')");
+
+        // Coupon tier key, so awarding does not have to match on free-text descriptions
+        ensureColumn(conn, "coupons", "tier_points", "ALTER TABLE coupons ADD COLUMN tier_points INTEGER");
+        st.executeUpdate("UPDATE coupons SET tier_points = " +
+                "(SELECT t.points FROM coupon_tiers t WHERE t.description = coupons.description) " +
+                "WHERE tier_points IS NULL AND level_required = 'Virtual'");
+        st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_coupons_tier ON coupons(tier_points)");
+    }
+
+    private static void historyIndex(Connection conn, Statement st) throws SQLException {
+        // Serves both user_id lookups and keyset-paged history (newest first)
+        st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_recycle_user_created ON recycle_entries(user_id, created_at DESC, id DESC)");
+        st.executeUpdate("DROP INDEX IF EXISTS idx_recycle_user");
+    }
+
+    private static void normalizedEmails(Connection conn, Statement st) throws SQLException {
+        // Emails are stored trimmed and lowercased so lookups can use idx_users_email with a plain
+        // equality. Rows that would collide with an existing address are left alone and reported.
+        st.executeUpdate("UPDATE OR IGNORE users SET email = LOWER(TRIM(email)) " +
+                "WHERE email IS NOT NULL AND email <> LOWER(TRIM(email))");
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(1) AS n FROM users " +
+                "WHERE email IS NOT NULL AND email <> LOWER(TRIM(email))")) {
+            if (rs.next() && rs.getInt("n") > 0) {
+                System.err.println("Could not normalize " + rs.getInt("n") + " user email(s): the lowercase address is already taken");
+            }
+        }
+
+        // Ensure unique index on email (ignore NULL emails). A legacy database with duplicate
+        // emails cannot get the index; do not fail the whole step over it.
+        st.executeUpdate("SAVEPOINT email_index");
+        try {
+            st.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS idx_users_email ON users(email)");
+            st.executeUpdate("RELEASE email_index");
+        } catch (SQLException e) {
+            st.executeUpdate("ROLLBACK TO email_index");
+            st.executeUpdate("RELEASE email_index");
+            System.err.println("Could not create idx_users_email: " + e.getMessage());
+        }
+    }
+
+    private static void seedSpots(Connection conn, Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM spots")) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                return;
+            }
+        }
+        st.executeUpdate("INSERT INTO spots(name, address, city) VALUES" +
+                "('Green Cycle Center','123 Park St','Metro City')," +
+                "('Eco DropPoint','45 River Ave','Metro City')," +
+                "('Reclaim Hub','9 Sunset Blvd','Metro City')");
+    }
+
+    private static void photoHashes(Connection conn, Statement st) throws SQLException {
+        // Content hash of the entry's photo in the PhotoStore (data/photos); photo_path keeps the
+        // name the user picked, for display
+        ensureColumn(conn, "recycle_entries", "photo_hash", "ALTER TABLE recycle_entries ADD COLUMN photo_hash TEXT");
+    }
+
+    private static void userStats(Connection conn, Statement st) throws SQLException {
+        // Running totals per user and category, kept current by RecycleDao; clustered on the key
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS user_stats (" +
+                "user_id INTEGER NOT NULL," +
+                "category TEXT NOT NULL," +
+                "entries INTEGER NOT NULL," +
+                "total_kg REAL NOT NULL," +
+                "last_at INTEGER NOT NULL," +
+                "PRIMARY KEY(user_id, category)" +
+                ") WITHOUT ROWID");
+        st.executeUpdate("INSERT OR REPLACE INTO user_stats(user_id, category, entries, total_kg, last_at) " +
+                "SELECT user_id, category, COUNT(*), SUM(weight_kg), MAX(created_at) " +
+                "FROM recycle_entries GROUP BY user_id, category");
+    }
+
+    private static void leaderboardIndexes(Connection conn, Statement st) throws SQLException {
+        // Top-N by points, globally and within a city, read straight off an index in rank order
+        st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_users_points ON users(points DESC)");
+        st.executeUpdate("CREATE INDEX IF NOT EXISTS idx_users_city_points ON users(city, points DESC)");
+    }
+
+    private static void rollups(Connection conn, Statement st) throws SQLException {
+        // Volume per period bucket, filled in by the background roll-up job (RollupDao); the key
+        // order serves "one series for one scope" as a single range read
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS recycle_rollups (" +
+                "period TEXT NOT NULL," +
+                "scope TEXT NOT NULL," +
+                "scope_key TEXT NOT NULL," +
+                "category TEXT NOT NULL," +
+                "bucket TEXT NOT NULL," +
+                "entries INTEGER NOT NULL," +
+                "total_kg REAL NOT NULL," +
+                "PRIMARY KEY(period, scope, scope_key, category, bucket)" +
+                ") WITHOUT ROWID");
+        // Highest source row id each roll-up has already counted
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS rollup_watermarks (" +
+                "name TEXT PRIMARY KEY," +
+                "last_id INTEGER NOT NULL" +
+                ")");
+    }
+
+    private static void localeIndependentEmails(Connection conn, Statement st) throws SQLException {
+        // Step 4's LOWER() only folds ASCII; finish with the rule lookups use, so addresses with
+        // non-ASCII capitals are reachable again. Rows whose normalized address belongs to another
+        // account are left alone and listed, so they can be fixed by hand; those users can still
+        // sign in with their nickname.
+        List<Long> ids = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery("SELECT id, email FROM users WHERE email IS NOT NULL")) {
+            while (rs.next()) {
+                String email = rs.getString("email");
+                String normalized = User.normalizeEmail(email);
+                if (!normalized.equals(email)) {
+                    ids.add(rs.getLong("id"));
+                    emails.add(normalized);
+                }
+            }
+        }
+        List<Long> skipped = new ArrayList<>();
+        try (PreparedStatement taken = conn.prepareStatement("SELECT 1 FROM users WHERE email = ? AND id <> ?");
+             PreparedStatement update = conn.prepareStatement("UPDATE users SET email = ? WHERE id = ?")) {
+            for (int i = 0; i < ids.size(); i++) {
+                taken.setString(1, emails.get(i));
+                taken.setLong(2, ids.get(i));
+                boolean collides;
+                try (ResultSet rs = taken.executeQuery()) {
+                    collides = rs.next();
+                }
+                if (collides) {
+                    skipped.add(ids.get(i));
+                    continue;
+                }
+                update.setString(1, emails.get(i));
+                update.setLong(2, ids.get(i));
+                update.executeUpdate();
+            }
+        }
+        if (!skipped.isEmpty()) {
+            System.err.println("Could not normalize the email of user(s) " + skipped +
+                    ": the lowercase address belongs to another account. They can sign in with their nickname.");
+        }
+    }
+
     private static void ensureColumn(Connection conn, String table, String column, String alterSql) throws SQLException {
         String check = "PRAGMA table_info(" + table + ")";
         boolean exists = false;
@@ -0,0 +1,56 @@
+package com.recyclingquest.db;
+
+public class PoolStats {
+    private final int maxSize;
+    private final int open;
+    private final int idle;
+    private final long hits;
+    private final long misses;
+    private final long waits;
+    private final long totalWaitMillis;
+
+    public PoolStats(int maxSize, int open, int idle, long hits, long misses, long waits, long totalWaitMillis) {
+        this.maxSize = maxSize;
+        this.open = open;
+        this.idle = idle;
+        this.hits = hits;
+        this.misses = misses;
+        this.waits = waits;
+        this.totalWaitMillis = totalWaitMillis;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getOpen() {
+        return open;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getWaits() {
+        return waits;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{maxSize=" + maxSize + ", open=" + open + ", idle=" + idle +
+                ", hits=" + hits + ", misses=" + misses + ", waits=" + waits +
+                ", totalWaitMillis=" + totalWaitMillis + "}";
+    }
+}
@@ -0,0 +1,13 @@
+package com.recyclingquest.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A unit of write work run on the single writer connection. Jobs run inside a shared
+ * transaction with other queued jobs, so they must not commit, roll back or close the connection.
+ */
+@FunctionalInterface
+public interface WriteJob<T> {
+    T run(Connection c) throws SQLException;
+}
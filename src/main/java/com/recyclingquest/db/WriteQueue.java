@@ -0,0 +1,191 @@
+package com.recyclingquest.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the only write connection. Jobs submitted from any thread are queued and every pending
+ * job is committed in one transaction (group commit), so a burst of writes costs one fsync.
+ * A failing job is rolled back to its own savepoint and does not affect the rest of the batch.
+ * Hooks registered by a job run on this thread once its batch has committed, in queue order.
+ */
+class WriteQueue {
+    private static final int MAX_BATCH = 64;
+
+    private final ConnectionPool.Opener opener;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong jobs = new AtomicLong();
+    private final Object closeLock = new Object();
+    private volatile boolean closed;
+    private Connection conn;
+    // Hooks registered by the job currently running; only touched on the writer thread
+    private List<Runnable> jobHooks;
+
+    WriteQueue(ConnectionPool.Opener opener) {
+        this.opener = opener;
+        this.thread = new Thread(this::loop, "db-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    <T> CompletableFuture<T> submit(WriteJob<T> job) {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException("Write jobs must not submit nested writes; use the connection they are given");
+        }
+        Pending<T> p = new Pending<>(job);
+        // Checked and queued under the lock close() takes, so a job is either queued before the
+        // writer starts draining for shutdown or rejected; it can never be left behind
+        synchronized (closeLock) {
+            if (closed) {
+                p.future.completeExceptionally(new SQLException("Database writer is closed"));
+                return p.future;
+            }
+            queue.add(p);
+        }
+        return p.future;
+    }
+
+    void afterCommit(Runnable hook) {
+        if (Thread.currentThread() != thread || jobHooks == null) {
+            throw new IllegalStateException("After-commit hooks can only be registered from inside a write job");
+        }
+        jobHooks.add(hook);
+    }
+
+    long committedBatches() {
+        return batches.get();
+    }
+
+    long committedJobs() {
+        return jobs.get();
+    }
+
+    void close() {
+        synchronized (closeLock) {
+            closed = true;
+        }
+        thread.interrupt();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        List<Pending<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending<?> first = closed ? queue.poll() : queue.take();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            execute(batch);
+            batch.clear();
+        }
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    private void execute(List<Pending<?>> batch) {
+        List<Pending<?>> succeeded = new ArrayList<>(batch.size());
+        List<Runnable> hooks = new ArrayList<>();
+        try {
+            if (conn == null || conn.isClosed()) {
+                conn = opener.open();
+            }
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            batch.forEach(p -> p.future.completeExceptionally(e));
+            conn = null;
+            return;
+        }
+        try {
+            for (Pending<?> p : batch) {
+                Savepoint sp = conn.setSavepoint();
+                jobHooks = new ArrayList<>();
+                try {
+                    p.runJob(conn);
+                    conn.releaseSavepoint(sp);
+                    succeeded.add(p);
+                    hooks.addAll(jobHooks);
+                } catch (Throwable t) {
+                    // The job's hooks go with its rolled-back changes
+                    conn.rollback(sp);
+                    conn.releaseSavepoint(sp);
+                    p.future.completeExceptionally(t);
+                } finally {
+                    jobHooks = null;
+                }
+            }
+            conn.commit();
+            batches.incrementAndGet();
+            jobs.addAndGet(succeeded.size());
+            // Before the futures complete, so a waiting caller already sees the hooks' effects
+            runHooks(hooks);
+            succeeded.forEach(Pending::complete);
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // The commit failure is what we report
+            }
+            batch.forEach(p -> p.future.completeExceptionally(e));
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                conn = null;
+            }
+        }
+    }
+
+    private static void runHooks(List<Runnable> hooks) {
+        for (Runnable hook : hooks) {
+            try {
+                hook.run();
+            } catch (RuntimeException e) {
+                // The data is committed; one broken hook must not fail the batch or skip the rest
+                System.err.println("After-commit hook failed: " + e);
+            }
+        }
+    }
+
+    private static final class Pending<T> {
+        private final WriteJob<T> job;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+
+        Pending(WriteJob<T> job) {
+            this.job = job;
+        }
+
+        void runJob(Connection c) throws SQLException {
+            result = job.run(c);
+        }
+
+        // Results are only published once the batch has committed
+        void complete() {
+            future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.recyclingquest.media;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * LRU cache bounded by the total weight (bytes) of its values rather than their count, for
+ * decoded images whose size varies a lot. Thread-safe.
+ */
+public class ByteBoundedCache<K, V> {
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ByteBoundedCache(long maxBytes, ToLongFunction<V> weigher) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * True if the key is cached. Does not count as a hit or a miss and does not touch LRU order.
+     */
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Adds a value and evicts least recently used entries until the cache fits its budget again.
+     * A value larger than the whole budget is not cached.
+     */
+    public synchronized void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxBytes) {
+            remove(key);
+            return;
+        }
+        V old = entries.put(key, value);
+        if (old != null) {
+            bytes -= weigher.applyAsLong(old);
+        }
+        bytes += weight;
+        Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            bytes -= weigher.applyAsLong(eldest.getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void remove(K key) {
+        V old = entries.remove(key);
+        if (old != null) {
+            bytes -= weigher.applyAsLong(old);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ByteBoundedCache{entries=" + entries.size() + ", bytes=" + bytes + "/" + maxBytes +
+                ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+}
@@ -0,0 +1,116 @@
+package com.recyclingquest.media;
+
+import javafx.scene.image.Image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rendered pages kept as PNGs across launches, under {@code <root>/<key>/page-N.png} where the
+ * key combines the document's SHA-256 and the render width, so a changed PDF or render size
+ * never reuses stale pages. The whole root is kept under a byte limit by deleting the least
+ * recently used files (reads refresh a file's timestamp). Blocking I/O: call off the FX thread.
+ */
+public class PageDiskCache {
+    private final File root;
+    private final long maxBytes;
+    private final Object evictLock = new Object();
+
+    public PageDiskCache(File root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+    }
+
+    public static String keyFor(byte[] document, int widthPx) {
+        return ContentHash.sha256(document) + "-" + widthPx + "px";
+    }
+
+    /**
+     * Returns the cached page, or null if it is not cached or cannot be read.
+     */
+    public Image load(String key, int page) {
+        File file = pageFile(key, page);
+        if (!file.isFile()) {
+            return null;
+        }
+        Image image = new Image(file.toURI().toString());
+        if (image.isError()) {
+            file.delete();
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return image;
+    }
+
+    public void store(String key, int page, BufferedImage image) {
+        File file = pageFile(key, page);
+        File dir = file.getParentFile();
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create " + dir);
+            }
+            // Write under a temp name first so a crash never leaves a truncated page behind
+            File tmp = File.createTempFile("page-", ".tmp", dir);
+            try {
+                ImageIO.write(image, "png", tmp);
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not cache rendered page " + file + ": " + e.getMessage());
+            return;
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Deletes least recently used pages (and emptied directories) until the cache fits its limit.
+     */
+    public void evictIfNeeded() {
+        synchronized (evictLock) {
+            List<File> files = new ArrayList<>();
+            long total = 0;
+            File[] dirs = root.listFiles(File::isDirectory);
+            if (dirs == null) {
+                return;
+            }
+            for (File dir : dirs) {
+                File[] pages = dir.listFiles(File::isFile);
+                if (pages == null) continue;
+                for (File f : pages) {
+                    files.add(f);
+                    total += f.length();
+                }
+            }
+            if (total <= maxBytes) {
+                return;
+            }
+            files.sort(Comparator.comparingLong(File::lastModified));
+            for (File f : files) {
+                if (total <= maxBytes) break;
+                long length = f.length();
+                if (f.delete()) {
+                    total -= length;
+                }
+            }
+            for (File dir : dirs) {
+                String[] left = dir.list();
+                if (left != null && left.length == 0) {
+                    dir.delete();
+                }
+            }
+        }
+    }
+
+    private File pageFile(String key, int page) {
+        return new File(new File(root, key), "page-" + (page + 1) + ".png");
+    }
+}
@@ -0,0 +1,114 @@
+package com.recyclingquest.media;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders pages of one PDF on several threads. A PDDocument must not be shared between threads,
+ * so every worker opens its own copy from the same bytes on first use; independent pages then
+ * render in parallel. Workers close their copy when they exit, whether idle for a while or
+ * stopped by {@link #shutdown()}.
+ */
+public class PageRenderPool {
+    public interface RenderJob<T> {
+        T run(PDFRenderer renderer) throws IOException;
+    }
+
+    private final byte[] pdf;
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<PDFRenderer> renderers;
+    private final ThreadLocal<PDDocument> documents = new ThreadLocal<>();
+
+    public PageRenderPool(byte[] pdf, int threads, String name) {
+        this.pdf = pdf;
+        this.renderers = ThreadLocal.withInitial(this::openRenderer);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(() -> {
+                try {
+                    r.run();
+                } finally {
+                    closeDocument();
+                }
+            }, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Thread count from the recyclingquest.rulebook.renderThreads property (default: up to 4,
+     * one less than the number of cores so the FX thread keeps a core).
+     */
+    public static int defaultThreads() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Integer.getInteger("recyclingquest.rulebook.renderThreads", Math.max(1, Math.min(4, cores - 1)));
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Runs {@code job} on a worker with that worker's renderer. Jobs run in submission order
+     * per worker but complete in any order across workers.
+     */
+    public <T> CompletableFuture<T> submit(RenderJob<T> job) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(job.run(renderers.get()));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Stops the workers; each closes its document once its current render (if any) returns.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private PDFRenderer openRenderer() {
+        try {
+            PDDocument document = Loader.loadPDF(pdf);
+            documents.set(document);
+            return new PDFRenderer(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeDocument() {
+        PDDocument document = documents.get();
+        if (document == null) {
+            return;
+        }
+        documents.remove();
+        renderers.remove();
+        try {
+            document.close();
+        } catch (IOException e) {
+            System.err.println("Could not close PDF copy: " + e.getMessage());
+        }
+    }
+}
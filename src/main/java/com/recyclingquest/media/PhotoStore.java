@@ -0,0 +1,65 @@
+package com.recyclingquest.media;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content-addressed photo storage: a photo is stored once as {@code <root>/ab/<sha256>} (first two
+ * hex digits as a fan-out directory) however many entries or users reference it. Entries keep the
+ * hash, so the original file can move or disappear. Blocking I/O: call off the FX thread.
+ */
+public class PhotoStore {
+    private final File root;
+
+    public PhotoStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Copies {@code source} into the store unless identical content is already there and returns
+     * its hash. The copy streams file-to-file with {@link FileChannel#transferTo}.
+     */
+    public String importPhoto(File source) throws IOException {
+        if (!source.isFile()) {
+            throw new IOException("Photo not found: " + source);
+        }
+        String hash = ContentHash.sha256(source);
+        File target = resolve(hash);
+        if (target.isFile() && target.length() == source.length()) {
+            return hash;
+        }
+        File dir = target.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        File tmp = File.createTempFile("photo-", ".tmp", dir);
+        try {
+            try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+                out.force(true);
+            }
+            try {
+                Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Another import of the same content won the race; its file is identical
+            }
+        } finally {
+            tmp.delete();
+        }
+        return hash;
+    }
+
+    public File resolve(String hash) {
+        return new File(new File(root, hash.substring(0, 2)), hash);
+    }
+}
@@ -0,0 +1,143 @@
+package com.recyclingquest.media;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small thumbnails of recycle entry photos. A photo is decoded once, downscaled while decoding,
+ * and the thumbnail is stored under {@code <dir>/<sha256 of the photo>.png}, so the same photo
+ * under any path shares one thumbnail and later launches never touch the original. Decoded
+ * thumbnails are kept in a byte-bounded LRU. All decoding and I/O runs on a small background pool.
+ */
+public class ThumbnailService {
+    public static final int SIZE = 48;
+
+    private final File dir;
+    private final ThreadPoolExecutor executor;
+    private final ByteBoundedCache<String, Image> memory;
+    private final Map<String, CompletableFuture<Image>> inFlight = new ConcurrentHashMap<>();
+    // Photo path + size + mtime -> content hash, so unchanged files are hashed once per run
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    public ThumbnailService(File dir, long memoryBytes, int threads) {
+        this.dir = dir;
+        this.memory = new ByteBoundedCache<>(memoryBytes, img -> (long) img.getWidth() * (long) img.getHeight() * 4);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "thumbnails-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the thumbnail if it is already decoded in memory, without any I/O.
+     */
+    public Image cached(String photoPath) {
+        return photoPath == null ? null : memory.get(photoPath);
+    }
+
+    /**
+     * Loads (or creates) the thumbnail for a photo in the background. The future completes with
+     * null when the path is blank, missing or not a readable image.
+     */
+    public CompletableFuture<Image> load(String photoPath) {
+        if (photoPath == null || photoPath.isBlank()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Image hit = memory.get(photoPath);
+        if (hit != null) {
+            return CompletableFuture.completedFuture(hit);
+        }
+        CompletableFuture<Image> created = new CompletableFuture<>();
+        CompletableFuture<Image> existing = inFlight.putIfAbsent(photoPath, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(produce(photoPath));
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(photoPath, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down
+            inFlight.remove(photoPath, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Image produce(String photoPath) {
+        File photo = new File(photoPath);
+        if (!photo.isFile()) {
+            return null;
+        }
+        try {
+            File thumb = new File(dir, hashOf(photo) + ".png");
+            Image image = null;
+            if (thumb.isFile()) {
+                image = new Image(thumb.toURI().toString());
+            }
+            if (image == null || image.isError()) {
+                // Downscales while decoding, so the full-size pixels are never held
+                image = new Image(photo.toURI().toString(), SIZE, SIZE, true, true);
+                if (image.isError()) {
+                    return null;
+                }
+                store(image, thumb);
+            }
+            memory.put(photoPath, image);
+            return image;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String hashOf(File photo) throws IOException {
+        String key = photo.getAbsolutePath() + "|" + photo.length() + "|" + photo.lastModified();
+        String hash = hashes.get(key);
+        if (hash == null) {
+            hash = ContentHash.sha256(photo);
+            hashes.put(key, hash);
+        }
+        return hash;
+    }
+
+    private void store(Image image, File thumb) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        File tmp = File.createTempFile("thumb-", ".tmp", dir);
+        try {
+            ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", tmp);
+            Files.move(tmp.toPath(), thumb.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+    }
+}
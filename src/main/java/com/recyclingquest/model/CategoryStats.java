@@ -0,0 +1,43 @@
+package com.recyclingquest.model;
+
+/**
+ * A user's recycling totals for one category, as kept in user_stats.
+ */
+public class CategoryStats {
+    private final long userId;
+    private final String category;
+    private final int entries;
+    private final double totalKg;
+    private final long lastAt;
+
+    public CategoryStats(long userId, String category, int entries, double totalKg, long lastAt) {
+        this.userId = userId;
+        this.category = category;
+        this.entries = entries;
+        this.totalKg = totalKg;
+        this.lastAt = lastAt;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public double getTotalKg() {
+        return totalKg;
+    }
+
+    /**
+     * created_at of the newest entry in this category.
+     */
+    public long getLastAt() {
+        return lastAt;
+    }
+}
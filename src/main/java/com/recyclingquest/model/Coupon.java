@@ -10,6 +10,7 @@ public class Coupon {
     private LocalDate expiryDate;
     private boolean isClaimed;
     private String logoUrl;
+    private int tierPoints;
     public int getId() {
         return id;
     }
@@ -64,6 +65,12 @@ public class Coupon {
     public void setLogoUrl(String logoUrl) {
         this.logoUrl = logoUrl;
     }
+    public int getTierPoints() {
+        return tierPoints;
+    }
+    public void setTierPoints(int tierPoints) {
+        this.tierPoints = tierPoints;
+    }
 }
 
 
@@ -0,0 +1,31 @@
+package com.recyclingquest.model;
+
+public class CouponTier {
+    private final int points;
+    private final String description;
+    private final String discount;
+    private final String codePrefix;
+
+    public CouponTier(int points, String description, String discount, String codePrefix) {
+        this.points = points;
+        this.description = description;
+        this.discount = discount;
+        this.codePrefix = codePrefix;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getDiscount() {
+        return discount;
+    }
+
+    public String getCodePrefix() {
+        return codePrefix;
+    }
+}
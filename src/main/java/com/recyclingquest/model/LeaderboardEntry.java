@@ -0,0 +1,40 @@
+package com.recyclingquest.model;
+
+/**
+ * One row of a leaderboard. Users with equal points share a rank.
+ */
+public class LeaderboardEntry {
+    private final int rank;
+    private final long userId;
+    private final String nickname;
+    private final String city;
+    private final int points;
+
+    public LeaderboardEntry(int rank, long userId, String nickname, String city, int points) {
+        this.rank = rank;
+        this.userId = userId;
+        this.nickname = nickname;
+        this.city = city;
+        this.points = points;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+}
@@ -1,11 +1,19 @@
 package com.recyclingquest.model;
 
+import java.util.List;
+
 public class RecycleEntry {
+    /**
+     * The categories the app offers, in display order.
+     */
+    public static final List<String> CATEGORIES = List.of("Plastic", "Paper", "Glass", "Metal", "E-Waste", "Organic");
+
     private long id;
     private long userId;
     private String category;
     private double weightKg;
     private String photoPath;
+    private String photoHash;
     private long createdAt;
 
     public long getId() {
@@ -48,6 +56,17 @@ public class RecycleEntry {
         this.photoPath = photoPath;
     }
 
+    /**
+     * Hash of the photo in the PhotoStore, or null for entries without a stored photo.
+     */
+    public String getPhotoHash() {
+        return photoHash;
+    }
+
+    public void setPhotoHash(String photoHash) {
+        this.photoHash = photoHash;
+    }
+
     public long getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,31 @@
+package com.recyclingquest.model;
+
+/**
+ * Recycling volume in one time bucket (a day, week or month starting at {@code bucket}).
+ */
+public class RollupPoint {
+    private final String bucket;
+    private final int entries;
+    private final double totalKg;
+
+    public RollupPoint(String bucket, int entries, double totalKg) {
+        this.bucket = bucket;
+        this.entries = entries;
+        this.totalKg = totalKg;
+    }
+
+    /**
+     * First day of the bucket, as yyyy-MM-dd.
+     */
+    public String getBucket() {
+        return bucket;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public double getTotalKg() {
+        return totalKg;
+    }
+}
@@ -2,6 +2,7 @@ package com.recyclingquest.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class User {
     private long id;
@@ -16,6 +17,14 @@ public class User {
     public User() {
     }
 
+    /**
+     * The form emails are stored and looked up in: trimmed and lowercased independently of the
+     * default locale (a Turkish locale would turn "I" into a dotless i).
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
     public User(long id, String nickname, String avatar, String city, int points, String email, String password) {
         this.id = id;
         this.nickname = nickname;
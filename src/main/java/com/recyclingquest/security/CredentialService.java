@@ -0,0 +1,106 @@
+package com.recyclingquest.security;
+
+import com.recyclingquest.dao.UserDao;
+import com.recyclingquest.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Password hashing and login verification on a small dedicated pool with a bounded queue, so
+ * expensive hashing never runs on the FX thread and cannot tie up the threads that do DB work.
+ * When the queue is full new requests fail fast with a {@link RejectedExecutionException}
+ * instead of piling up. Legacy plaintext passwords are rehashed on the first successful login.
+ */
+public class CredentialService {
+    private final UserDao userDao;
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Sized by the recyclingquest.auth.threads (default: half the cores) and
+     * recyclingquest.auth.queueSize (default 32) properties.
+     */
+    public CredentialService(UserDao userDao) {
+        this(userDao, new PasswordHasher(),
+                Integer.getInteger("recyclingquest.auth.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+                Integer.getInteger("recyclingquest.auth.queueSize", 32));
+    }
+
+    public CredentialService(UserDao userDao, PasswordHasher hasher, int threads, int queueSize) {
+        this.userDao = userDao;
+        this.hasher = hasher;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "credentials-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Looks up the account by email or nickname and verifies the password.
+     */
+    public CompletableFuture<LoginResult> login(String identifier, String password) {
+        return submit(() -> {
+            Optional<User> found = userDao.findByLogin(identifier);
+            if (found.isEmpty()) {
+                return LoginResult.failed(LoginResult.Status.UNKNOWN_ACCOUNT);
+            }
+            User user = found.get();
+            String stored = user.getPassword();
+            if (!hasher.verify(password, stored)) {
+                return LoginResult.failed(LoginResult.Status.WRONG_PASSWORD);
+            }
+            if (hasher.needsRehash(stored)) {
+                try {
+                    String rehashed = hasher.hash(password);
+                    userDao.updatePassword(user.getId(), rehashed);
+                    user.setPassword(rehashed);
+                } catch (RuntimeException e) {
+                    // The login itself succeeded; try again next time
+                    System.err.println("Could not upgrade password hash for user " + user.getId() + ": " + e.getMessage());
+                }
+            }
+            return LoginResult.ok(user);
+        });
+    }
+
+    /**
+     * Hashes a new password for storage.
+     */
+    public CompletableFuture<String> hash(String password) {
+        return submit(() -> hasher.hash(password));
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getCompleted() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Too many sign-in requests in progress, please try again", e));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.recyclingquest.security;
+
+import com.recyclingquest.model.User;
+
+public class LoginResult {
+    public enum Status {
+        OK,
+        UNKNOWN_ACCOUNT,
+        WRONG_PASSWORD
+    }
+
+    private final Status status;
+    private final User user;
+
+    private LoginResult(Status status, User user) {
+        this.status = status;
+        this.user = user;
+    }
+
+    static LoginResult ok(User user) {
+        return new LoginResult(Status.OK, user);
+    }
+
+    static LoginResult failed(Status status) {
+        return new LoginResult(status, null);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.OK;
+    }
+
+    /**
+     * The logged-in user, or null unless the login succeeded.
+     */
+    public User getUser() {
+        return user;
+    }
+}
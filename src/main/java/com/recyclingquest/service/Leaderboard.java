@@ -0,0 +1,314 @@
+package com.recyclingquest.service;
+
+import com.recyclingquest.dao.UserDao;
+import com.recyclingquest.db.Database;
+import com.recyclingquest.model.LeaderboardEntry;
+import com.recyclingquest.model.User;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Global and per-city rankings by points. Every user's points and city are held in arrays indexed
+ * by user id, with one {@link RankIndex} for everyone and one per city, so a user's rank is a
+ * couple of array reads and a Fenwick prefix sum. The index is loaded with one scan of users on
+ * first use and then kept current from {@link UserDao.PointsListener} events, which arrive in commit
+ * order; events committed while the load runs are buffered and replayed after it. Top-N lists are read
+ * from idx_users_points / idx_users_city_points and cached per scope until a points change could
+ * alter them. Points written by another process (the import tool, a second instance) send no
+ * events; {@link #reload()} picks them up. Thread-safe; the first call blocks for the initial
+ * load, so call it off the FX thread.
+ */
+public class Leaderboard {
+    public static final int DEFAULT_TOP_N = Integer.getInteger("recyclingquest.leaderboard.size", 50);
+
+    private final Database db;
+    private final UserDao userDao;
+    private final int topN;
+
+    private boolean loaded;
+    // Guards the two fields below, so the writer thread never waits on the initial load
+    private final Object eventLock = new Object();
+    private boolean eventsLive;
+    // (user id, total) events seen while the initial load runs; null otherwise
+    private List<long[]> buffered;
+    // Indexed by user id; -1 marks ids with no known user
+    private int[] points = new int[0];
+    private int[] cityOf = new int[0];
+    private final Map<String, Integer> cityIds = new HashMap<>();
+    private final List<String> cityNames = new ArrayList<>();
+    private final List<RankIndex> cityRanks = new ArrayList<>();
+    private RankIndex globalRanks = new RankIndex();
+    // Scope ("" for global) -> cached top list; version guards against caching a stale read
+    private final Map<String, List<LeaderboardEntry>> topCache = new HashMap<>();
+    private long version;
+
+    public Leaderboard(Database db, UserDao userDao) {
+        this(db, userDao, DEFAULT_TOP_N);
+    }
+
+    public Leaderboard(Database db, UserDao userDao, int topN) {
+        this.db = db;
+        this.userDao = userDao;
+        this.topN = topN;
+        userDao.addPointsListener(this::pointsChanged);
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    /**
+     * The best {@link #getTopN()} users, everywhere ({@code city} null) or within one city.
+     */
+    public List<LeaderboardEntry> top(String city) {
+        String scope = city == null ? "" : city;
+        long readVersion;
+        synchronized (this) {
+            ensureLoaded();
+            List<LeaderboardEntry> cached = topCache.get(scope);
+            if (cached != null) {
+                return cached;
+            }
+            readVersion = version;
+        }
+        String sql = city == null
+                ? "SELECT id, nickname, city, points FROM users ORDER BY points DESC, id LIMIT ?"
+                : "SELECT id, nickname, city, points FROM users WHERE city = ? ORDER BY points DESC, id LIMIT ?";
+        List<User> users = new ArrayList<>(topN);
+        try (Connection c = db.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            int idx = 1;
+            if (city != null) {
+                ps.setString(idx++, city);
+            }
+            ps.setInt(idx, topN);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    users.add(new User(rs.getLong("id"), rs.getString("nickname"), null, rs.getString("city"), rs.getInt("points"), null, null));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        synchronized (this) {
+            RankIndex ranks = city == null ? globalRanks : cityRanks(city);
+            List<LeaderboardEntry> list = new ArrayList<>(users.size());
+            for (User u : users) {
+                int rank = ranks == null ? 1 : ranks.rankOf(u.getPoints());
+                list.add(new LeaderboardEntry(rank, u.getId(), u.getNickname(), u.getCity(), u.getPoints()));
+            }
+            list = List.copyOf(list);
+            if (version == readVersion) {
+                topCache.put(scope, list);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * The user's rank among everyone, or 0 if the user is unknown.
+     */
+    public synchronized int globalRank(long userId) {
+        ensureLoaded();
+        return isKnown(userId) ? globalRanks.rankOf(points[(int) userId]) : 0;
+    }
+
+    /**
+     * The user's rank within their city, or 0 if the user is unknown or has no city.
+     */
+    public synchronized int cityRank(long userId) {
+        ensureLoaded();
+        if (!isKnown(userId) || cityOf[(int) userId] < 0) {
+            return 0;
+        }
+        return cityRanks.get(cityOf[(int) userId]).rankOf(points[(int) userId]);
+    }
+
+    public synchronized int globalSize() {
+        ensureLoaded();
+        return globalRanks.size();
+    }
+
+    public synchronized int citySize(String city) {
+        ensureLoaded();
+        RankIndex ranks = cityRanks(city);
+        return ranks == null ? 0 : ranks.size();
+    }
+
+    /**
+     * Drops the cached lists and rescans users, for points changed outside this process. Blocks
+     * like the initial load; events committed meanwhile are buffered and replayed as then.
+     */
+    public synchronized void reload() {
+        synchronized (eventLock) {
+            // Until the scan starts buffering, events are for commits the scan will read
+            eventsLive = false;
+        }
+        loaded = false;
+        points = new int[0];
+        cityOf = new int[0];
+        cityIds.clear();
+        cityNames.clear();
+        cityRanks.clear();
+        globalRanks = new RankIndex();
+        topCache.clear();
+        version++;
+        ensureLoaded();
+    }
+
+    private void pointsChanged(long userId, int total) {
+        synchronized (eventLock) {
+            if (buffered != null) {
+                buffered.add(new long[]{userId, total});
+                return;
+            }
+            if (!eventsLive) {
+                // The initial load has not started and will read the committed value
+                return;
+            }
+        }
+        apply(userId, total);
+    }
+
+    private void apply(long userId, int total) {
+        String city = null;
+        synchronized (this) {
+            if (!isKnown(userId)) {
+                city = "?";
+            }
+        }
+        if (city != null) {
+            // A user created after the load: look up their city outside the lock
+            city = userDao.findById(userId).map(User::getCity).orElse(null);
+        }
+        synchronized (this) {
+            if (isKnown(userId)) {
+                move(userId, total);
+            } else {
+                addUser(userId, city, total);
+            }
+        }
+    }
+
+    private void move(long userId, int total) {
+        int id = (int) userId;
+        int old = points[id];
+        if (old == total) {
+            return;
+        }
+        int newPoints = Math.max(0, total);
+        globalRanks.remove(old);
+        globalRanks.add(newPoints);
+        if (cityOf[id] >= 0) {
+            RankIndex ranks = cityRanks.get(cityOf[id]);
+            ranks.remove(old);
+            ranks.add(newPoints);
+        }
+        points[id] = newPoints;
+        invalidate(userId, cityOf[id], newPoints);
+    }
+
+    private void addUser(long userId, String city, int total) {
+        int id = (int) userId;
+        ensureCapacity(id);
+        int newPoints = Math.max(0, total);
+        points[id] = newPoints;
+        globalRanks.add(newPoints);
+        int cityId = -1;
+        if (city != null) {
+            cityId = cityIds.computeIfAbsent(city, k -> {
+                cityNames.add(k);
+                cityRanks.add(new RankIndex());
+                return cityRanks.size() - 1;
+            });
+            cityRanks.get(cityId).add(newPoints);
+        }
+        cityOf[id] = cityId;
+        invalidate(userId, cityId, newPoints);
+    }
+
+    private void invalidate(long userId, int cityId, int newPoints) {
+        version++;
+        invalidateScope("", userId, newPoints);
+        if (cityId >= 0) {
+            invalidateScope(cityNames.get(cityId), userId, newPoints);
+        }
+    }
+
+    // Drops a cached list only if the change can show up in it
+    private void invalidateScope(String scope, long userId, int newPoints) {
+        List<LeaderboardEntry> cached = topCache.get(scope);
+        if (cached == null) {
+            return;
+        }
+        boolean affected = cached.size() < topN || newPoints >= cached.get(cached.size() - 1).getPoints();
+        for (int i = 0; !affected && i < cached.size(); i++) {
+            affected = cached.get(i).getUserId() == userId;
+        }
+        if (affected) {
+            topCache.remove(scope);
+        }
+    }
+
+    private RankIndex cityRanks(String city) {
+        Integer id = cityIds.get(city);
+        return id == null ? null : cityRanks.get(id);
+    }
+
+    private boolean isKnown(long userId) {
+        return userId >= 0 && userId < points.length && points[(int) userId] >= 0;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < points.length) {
+            return;
+        }
+        int length = Math.max(id + 1, points.length * 2);
+        int from = points.length;
+        points = Arrays.copyOf(points, length);
+        cityOf = Arrays.copyOf(cityOf, length);
+        Arrays.fill(points, from, length, -1);
+        Arrays.fill(cityOf, from, length, -1);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        synchronized (eventLock) {
+            buffered = new ArrayList<>();
+        }
+        List<long[]> replay;
+        boolean scanned = false;
+        try {
+            try (Connection c = db.getConnection();
+                 Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT id, city, points FROM users")) {
+                while (rs.next()) {
+                    addUser(rs.getLong(1), rs.getString(2), rs.getInt(3));
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            scanned = true;
+        } finally {
+            synchronized (eventLock) {
+                replay = buffered;
+                buffered = null;
+                eventsLive = scanned;
+            }
+        }
+        // Totals are absolute, so replaying one the scan already saw is harmless. Later events
+        // wait on this lock, so they still apply after these.
+        for (long[] event : replay) {
+            apply(event[0], (int) event[1]);
+        }
+        loaded = true;
+        System.out.println("Leaderboard loaded " + globalRanks.size() + " users in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,61 @@
+package com.recyclingquest.service;
+
+import java.util.Arrays;
+
+/**
+ * Counts of users per points value in a Fenwick (binary indexed) tree, so "how many users have
+ * more points than X" and moving one user are both O(log maxPoints). The tree grows by doubling;
+ * with a power-of-two capacity the existing nodes stay valid and the only new non-zero node is
+ * the root of the doubled range, which covers everything counted so far.
+ */
+final class RankIndex {
+    // tree[i] covers points values (i - lowbit(i), i] shifted by one; tree[0] is unused
+    private int[] tree = new int[1024 + 1];
+    private int size;
+
+    void add(int points) {
+        update(points, 1);
+        size++;
+    }
+
+    void remove(int points) {
+        update(points, -1);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Competition rank of a score: 1 + the number of users with strictly more points.
+     */
+    int rankOf(int points) {
+        return size - countAtMost(points) + 1;
+    }
+
+    private int countAtMost(int points) {
+        int sum = 0;
+        for (int i = Math.min(points + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void update(int points, int delta) {
+        int index = points + 1;
+        while (index >= tree.length) {
+            grow();
+        }
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void grow() {
+        int capacity = tree.length - 1;
+        int total = countAtMost(capacity - 1);
+        tree = Arrays.copyOf(tree, capacity * 2 + 1);
+        tree[capacity * 2] = total;
+    }
+}
@@ -0,0 +1,36 @@
+package com.recyclingquest.service;
+
+import com.recyclingquest.model.Coupon;
+import com.recyclingquest.model.RecycleEntry;
+
+import java.util.List;
+
+public class RecordResult {
+    private final RecycleEntry entry;
+    private final int pointsAwarded;
+    private final int totalPoints;
+    private final List<Coupon> newCoupons;
+
+    public RecordResult(RecycleEntry entry, int pointsAwarded, int totalPoints, List<Coupon> newCoupons) {
+        this.entry = entry;
+        this.pointsAwarded = pointsAwarded;
+        this.totalPoints = totalPoints;
+        this.newCoupons = List.copyOf(newCoupons);
+    }
+
+    public RecycleEntry getEntry() {
+        return entry;
+    }
+
+    public int getPointsAwarded() {
+        return pointsAwarded;
+    }
+
+    public int getTotalPoints() {
+        return totalPoints;
+    }
+
+    public List<Coupon> getNewCoupons() {
+        return newCoupons;
+    }
+}
@@ -0,0 +1,61 @@
+package com.recyclingquest.service;
+
+import com.recyclingquest.dao.CouponDao;
+import com.recyclingquest.dao.RecycleDao;
+import com.recyclingquest.dao.UserDao;
+import com.recyclingquest.db.Database;
+import com.recyclingquest.model.Coupon;
+import com.recyclingquest.model.RecycleEntry;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class RecyclingService {
+    private final Database db;
+    private final RecycleDao recycleDao;
+    private final UserDao userDao;
+    private final CouponDao couponDao;
+
+    public RecyclingService(Database db, RecycleDao recycleDao, UserDao userDao, CouponDao couponDao) {
+        this.db = db;
+        this.recycleDao = recycleDao;
+        this.userDao = userDao;
+        this.couponDao = couponDao;
+    }
+
+    public static int calculateEcoPoints(double weight) {
+        if (weight <= 0.05) {
+            return 1;
+        } else if (weight <= 0.25) {
+            return 3;
+        } else if (weight <= 0.5) {
+            return 5;
+        } else if (weight <= 1.0) {
+            return 10;
+        } else if (weight <= 2.0) {
+            return 20;
+        } else if (weight <= 5.0) {
+            return 40;
+        } else {
+            return 70;
+        }
+    }
+
+    /**
+     * Records a recycling drop: inserts the entry, credits the points and awards any newly
+     * reached coupons in one transaction, so points and coupons can never disagree after a crash.
+     *
+     * @throws NoSuchElementException if the entry's user does not exist (nothing is written)
+     */
+    public RecordResult recordEntry(RecycleEntry entry) {
+        int points = calculateEcoPoints(entry.getWeightKg());
+        return db.writeAndWait(c -> {
+            // Credit points first: RETURNING gives the new total and tells us the user exists
+            int totalPoints = userDao.addPoints(c, entry.getUserId(), points)
+                    .orElseThrow(() -> new NoSuchElementException("No account found for user " + entry.getUserId()));
+            recycleDao.insert(c, entry);
+            List<Coupon> awarded = couponDao.awardEligibleCoupons(c, entry.getUserId(), totalPoints);
+            return new RecordResult(entry, points, totalPoints, awarded);
+        });
+    }
+}
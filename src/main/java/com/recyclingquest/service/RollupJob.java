@@ -0,0 +1,77 @@
+package com.recyclingquest.service;
+
+import com.recyclingquest.dao.RollupDao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps recycle_rollups caught up in the background: every few seconds (the
+ * recyclingquest.rollup.intervalSeconds property, default 30) it folds in new entries in batches,
+ * one short write transaction per batch so interactive writes are never held up for long.
+ * A first run after startup backfills existing history the same way.
+ */
+public class RollupJob {
+    private static final int BATCH = Integer.getInteger("recyclingquest.rollup.batchSize", 10_000);
+
+    private final RollupDao rollups;
+    private final ScheduledExecutorService executor;
+
+    public RollupJob(RollupDao rollups) {
+        this.rollups = rollups;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rollups");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        long interval = Long.getLong("recyclingquest.rollup.intervalSeconds", 30);
+        executor.scheduleWithFixedDelay(this::runLogged, 0, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Catches up now (after any run in progress) and completes with the number of entries
+     * folded in, so a chart can include entries saved a moment ago.
+     */
+    public CompletableFuture<Integer> runNow() {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(catchUp());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runLogged() {
+        try {
+            long start = System.currentTimeMillis();
+            int n = catchUp();
+            if (n > 0) {
+                System.out.println("Rolled up " + n + " recycle entries in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next run retries from the same watermark
+            System.err.println("Roll-up failed: " + e);
+        }
+    }
+
+    private int catchUp() {
+        int total = 0;
+        int n;
+        while ((n = rollups.rollUpNext(BATCH)) > 0) {
+            total += n;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,143 @@
+package com.recyclingquest.tools;
+
+import com.recyclingquest.dao.CouponDao;
+import com.recyclingquest.dao.CouponTierCatalog;
+import com.recyclingquest.dao.UserDao;
+import com.recyclingquest.db.Database;
+import com.recyclingquest.db.Migrations;
+import com.recyclingquest.model.Coupon;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Has many threads race to claim a limited pool of real coupons and checks that no code was
+ * handed out twice. Every thread opens its own Database (its own writer connection), like separate
+ * app instances sharing one file, so claims really contend for the SQLite write lock. Exits with
+ * status 1 if any coupon was double-claimed or the pool was not fully handed out.
+ *
+ * Usage: ClaimStress [threads] [coupons] [dbFile]  (default: a temporary database)
+ */
+public class ClaimStress {
+    private static final String LEVEL = "Stress";
+    private static final String OFFER = "Stress test voucher";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int coupons = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        File file = args.length > 2 ? new File(args[2]) : File.createTempFile("claim-stress-", ".db");
+        if (args.length <= 2) {
+            file.deleteOnExit();
+        }
+        String url = "jdbc:sqlite:" + file.getAbsolutePath();
+
+        Database setup = new Database(url, 1, 5000);
+        List<Long> users = new ArrayList<>();
+        try {
+            Migrations.run(setup);
+            seed(setup, coupons);
+            UserDao userDao = new UserDao(setup);
+            long stamp = System.currentTimeMillis();
+            for (int i = 0; i < threads; i++) {
+                users.add(userDao.create("stress-" + stamp + "-" + i, null, null, null, null).getId());
+            }
+        } finally {
+            setup.close();
+        }
+
+        AtomicLong claimed = new AtomicLong();
+        AtomicLong lostRaces = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long userId = users.get(i);
+            Thread t = new Thread(() -> {
+                Database db = new Database(url, 1, 30_000);
+                CouponDao dao = new CouponDao(db, new CouponTierCatalog(db));
+                try {
+                    start.await();
+                    while (true) {
+                        // Read-then-claim, like the UI: the offered code is often gone by the time we claim
+                        Optional<Coupon> offered = dao.getCouponByLevel(LEVEL);
+                        if (offered.isEmpty()) {
+                            break;
+                        }
+                        Coupon got = dao.redeemCouponForUser(userId, offered.get());
+                        claimed.incrementAndGet();
+                        if (got.getId() != offered.get().getId()) {
+                            lostRaces.incrementAndGet();
+                        }
+                    }
+                } catch (NoSuchElementException e) {
+                    // The pool ran out between our read and our claim
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    System.err.println(Thread.currentThread().getName() + " failed: " + e);
+                } finally {
+                    db.close();
+                }
+            }, "claimer-" + i);
+            workers.add(t);
+            t.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread t : workers) {
+            t.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        Database check = new Database(url, 1, 5000);
+        boolean ok;
+        try (Connection c = check.getConnection(); Statement st = c.createStatement()) {
+            long redemptions = count(st, "SELECT COUNT(*) FROM user_coupons uc JOIN coupons c ON c.id = uc.coupon_id WHERE c.level_required = '" + LEVEL + "'");
+            long distinct = count(st, "SELECT COUNT(DISTINCT uc.coupon_id) FROM user_coupons uc JOIN coupons c ON c.id = uc.coupon_id WHERE c.level_required = '" + LEVEL + "'");
+            long unclaimed = count(st, "SELECT COUNT(*) FROM coupons WHERE level_required = '" + LEVEL + "' AND is_claimed = 0");
+            System.out.printf("threads=%d coupons=%d claimed=%d redemptions=%d distinct=%d unclaimed=%d lostRaces=%d failures=%d%n",
+                    threads, coupons, claimed.get(), redemptions, distinct, unclaimed, lostRaces.get(), failures.get());
+            System.out.printf("%.0f claims/sec (%.2fs)%n", claimed.get() / seconds, seconds);
+            ok = redemptions == distinct && distinct == coupons && claimed.get() == coupons && unclaimed == 0 && failures.get() == 0;
+        } finally {
+            check.close();
+        }
+        System.out.println(ok ? "OK: every code was claimed exactly once" : "FAILED: double claims or lost coupons");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static void seed(Database db, int coupons) {
+        db.writeAndWait(c -> {
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO coupons(level_required, company_name, description, discount, coupon_code, expiry_date, is_claimed) VALUES(?,?,?,?,?,?,0)")) {
+                for (int i = 1; i <= coupons; i++) {
+                    ps.setString(1, LEVEL);
+                    ps.setString(2, "Stress Co");
+                    ps.setString(3, OFFER);
+                    ps.setString(4, "1% OFF");
+                    ps.setString(5, String.format("STRESS-%05d", i));
+                    ps.setString(6, "2030-12-31");
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static long count(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
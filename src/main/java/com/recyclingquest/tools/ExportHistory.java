@@ -0,0 +1,36 @@
+package com.recyclingquest.tools;
+
+import com.recyclingquest.db.Database;
+import com.recyclingquest.transfer.ExportReport;
+import com.recyclingquest.transfer.HistoryExporter;
+import com.recyclingquest.transfer.TransferFormat;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Exports recycle entries, trades and redeemed coupons to one file per table, for everyone or a
+ * single user, from the app database (or the given JDBC URL).
+ *
+ * Usage: ExportHistory <dir> [csv|ndjson] [userId|all] [jdbcUrl]
+ */
+public class ExportHistory {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ExportHistory <dir> [csv|ndjson] [userId|all] [jdbcUrl]");
+            System.exit(2);
+        }
+        File dir = new File(args[0]);
+        TransferFormat format = args.length > 1 ? TransferFormat.valueOf(args[1].toUpperCase(Locale.ROOT)) : TransferFormat.CSV;
+        Long userId = args.length > 2 && !args[2].equalsIgnoreCase("all") ? Long.valueOf(args[2]) : null;
+        Database db = args.length > 3 ? new Database(args[3], 1, 5000) : new Database();
+        try {
+            HistoryExporter exporter = new HistoryExporter(db);
+            ExportReport report = userId == null ? exporter.exportAll(dir, format) : exporter.exportUser(dir, format, userId);
+            report.getRows().forEach((file, rows) -> System.out.println(file + ": " + rows + " rows"));
+            System.out.println("Done: " + report);
+        } finally {
+            db.close();
+        }
+    }
+}
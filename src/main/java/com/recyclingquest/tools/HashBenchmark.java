@@ -0,0 +1,61 @@
+package com.recyclingquest.tools;
+
+import com.recyclingquest.security.PasswordHasher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures login verifications per second for a range of PBKDF2 iteration counts, to pick a
+ * value for recyclingquest.auth.iterations on the target machine.
+ *
+ * Usage: HashBenchmark [threads] [loginsPerSetting] [iterations...]
+ */
+public class HashBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int logins = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        List<Integer> settings = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            settings.add(Integer.parseInt(args[i]));
+        }
+        if (settings.isEmpty()) {
+            settings = List.of(10_000, 100_000, PasswordHasher.DEFAULT_ITERATIONS, 600_000);
+        }
+
+        // Warm up the JIT so the first setting is not measured in the interpreter
+        PasswordHasher warmup = new PasswordHasher(1_000);
+        String warm = warmup.hash("warmup");
+        for (int i = 0; i < 200; i++) {
+            warmup.verify("warmup", warm);
+        }
+
+        System.out.println("threads=" + threads + ", logins per setting=" + logins);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int iterations : settings) {
+                PasswordHasher hasher = new PasswordHasher(iterations);
+                String stored = hasher.hash("correct horse battery staple");
+
+                long start = System.nanoTime();
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < logins; i++) {
+                    results.add(pool.submit(() -> hasher.verify("correct horse battery staple", stored)));
+                }
+                for (Future<Boolean> f : results) {
+                    if (!f.get()) {
+                        throw new IllegalStateException("Verification failed for iterations=" + iterations);
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("iterations=%-8d %8.1f logins/sec  %7.1f ms per login%n",
+                        iterations, logins / seconds, seconds * 1000 * threads / logins);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.recyclingquest.tools;
+
+import com.recyclingquest.dao.CouponDao;
+import com.recyclingquest.dao.CouponTierCatalog;
+import com.recyclingquest.dao.RecycleDao;
+import com.recyclingquest.dao.UserDao;
+import com.recyclingquest.db.Database;
+import com.recyclingquest.db.Migrations;
+import com.recyclingquest.transfer.ImportReport;
+import com.recyclingquest.transfer.RecycleImporter;
+import com.recyclingquest.transfer.TransferFormat;
+
+import java.io.File;
+
+/**
+ * Imports recycling entries from a .csv or .ndjson/.jsonl file into the app database (or the
+ * given JDBC URL), printing progress and throughput as chunks commit.
+ *
+ * Usage: ImportRecycling <file> [jdbcUrl]
+ */
+public class ImportRecycling {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ImportRecycling <file> [jdbcUrl]");
+            System.exit(2);
+        }
+        File file = new File(args[0]);
+        Database db = args.length > 1 ? new Database(args[1], 2, 5000) : new Database();
+        try {
+            Migrations.run(db);
+            RecycleImporter importer = new RecycleImporter(db, new RecycleDao(db), new UserDao(db), new CouponDao(db, new CouponTierCatalog(db)));
+            long[] lastPrint = {0};
+            ImportReport report = importer.importFile(file, TransferFormat.forFile(file), progress -> {
+                long now = System.currentTimeMillis();
+                if (now - lastPrint[0] >= 1000) {
+                    lastPrint[0] = now;
+                    System.out.println(progress);
+                }
+            });
+            System.out.println("Done: " + report);
+            for (String error : report.getErrors()) {
+                System.out.println("  " + error);
+            }
+            if (report.getRejected() > report.getErrors().size()) {
+                System.out.println("  ... and " + (report.getRejected() - report.getErrors().size()) + " more");
+            }
+        } finally {
+            db.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.recyclingquest.tools;
+
+import com.recyclingquest.dao.StatsDao;
+import com.recyclingquest.db.Database;
+import com.recyclingquest.db.Migrations;
+
+/**
+ * Recomputes the user_stats table from recycle_entries, for when the running totals are suspected
+ * to have drifted (e.g. after editing the database by hand).
+ *
+ * Usage: RebuildStats [jdbcUrl]
+ */
+public class RebuildStats {
+    public static void main(String[] args) {
+        Database db = args.length > 0 ? new Database(args[0], 1, 5000) : new Database();
+        try {
+            Migrations.run(db);
+            long start = System.currentTimeMillis();
+            int rows = new StatsDao(db).rebuild();
+            System.out.println("Rebuilt " + rows + " user_stats rows in " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            db.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.recyclingquest.tools;
+
+import com.recyclingquest.media.PageRenderPool;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Renders every page of a PDF with 1..N threads and prints pages/sec for each thread count,
+ * to pick a value for recyclingquest.rulebook.renderThreads.
+ *
+ * Usage: RenderBenchmark [maxThreads] [widthPx] [pdfPath]  (default: the bundled rulebook)
+ */
+public class RenderBenchmark {
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 800;
+        byte[] pdf;
+        if (args.length > 2) {
+            pdf = Files.readAllBytes(Path.of(args[2]));
+        } else {
+            try (InputStream in = RenderBenchmark.class.getResourceAsStream("/images/rulebook.pdf")) {
+                if (in == null) {
+                    throw new IllegalStateException("rulebook.pdf not found on the classpath");
+                }
+                pdf = in.readAllBytes();
+            }
+        }
+        List<Float> scales = new ArrayList<>();
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            for (int i = 0; i < document.getNumberOfPages(); i++) {
+                scales.add(width / document.getPage(i).getMediaBox().getWidth());
+            }
+        }
+
+        System.out.println(scales.size() + " pages at " + width + " px wide");
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            PageRenderPool pool = new PageRenderPool(pdf, threads, "bench");
+            try {
+                // First pass opens each worker's document and warms up the JIT
+                renderAll(pool, scales);
+                long start = System.nanoTime();
+                renderAll(pool, scales);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("threads=%-3d %7.1f pages/sec  (%.0f ms for all pages)%n",
+                        threads, scales.size() / seconds, seconds * 1000);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void renderAll(PageRenderPool pool, List<Float> scales) {
+        List<CompletableFuture<?>> pages = new ArrayList<>();
+        for (int i = 0; i < scales.size(); i++) {
+            int page = i;
+            pages.add(pool.submit(renderer -> renderer.renderImage(page, scales.get(page))));
+        }
+        CompletableFuture.allOf(pages.toArray(new CompletableFuture<?>[0])).join();
+    }
+}
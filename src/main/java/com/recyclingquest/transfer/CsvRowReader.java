@@ -0,0 +1,83 @@
+package com.recyclingquest.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV with a header row naming the columns. Fields may be double-quoted (with "" for a literal
+ * quote); quoted fields cannot span lines.
+ */
+class CsvRowReader extends RowReader {
+    private final List<String> header;
+
+    CsvRowReader(BufferedReader in) throws IOException {
+        super(in);
+        String first = readLine();
+        if (first == null) {
+            throw new IOException("CSV file is empty");
+        }
+        // Tolerate a UTF-8 byte order mark from spreadsheet exports
+        if (first.startsWith("\uFEFF")) {
+            first = first.substring(1);
+        }
+        header = new ArrayList<>();
+        for (String name : split(first)) {
+            header.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    @Override
+    Map<String, String> next() throws IOException {
+        String s = readLine();
+        if (s == null) {
+            return null;
+        }
+        List<String> fields = split(s);
+        if (fields.size() != header.size()) {
+            throw new IllegalArgumentException("expected " + header.size() + " fields but found " + fields.size());
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            row.put(header.get(i), fields.get(i));
+        }
+        return row;
+    }
+
+    static List<String> split(String s) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < s.length() && s.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
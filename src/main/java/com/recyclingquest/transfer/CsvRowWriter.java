@@ -0,0 +1,38 @@
+package com.recyclingquest.transfer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * CSV with a header row, quoted as in RFC 4180: fields containing a comma, quote or line break
+ * are double-quoted. Null is written as an empty field.
+ */
+class CsvRowWriter extends RowWriter {
+    CsvRowWriter(Writer out, List<String> columns) throws IOException {
+        super(out, columns);
+        write(columns.toArray());
+    }
+
+    @Override
+    void write(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String s = value.toString();
+            if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(s.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(s);
+            }
+        }
+        out.write('\n');
+    }
+}
@@ -0,0 +1,41 @@
+package com.recyclingquest.transfer;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Files written by an export and the number of rows in each.
+ */
+public class ExportReport {
+    private final Map<File, Long> rows;
+    private final long elapsedMillis;
+
+    public ExportReport(Map<File, Long> rows, long elapsedMillis) {
+        this.rows = Collections.unmodifiableMap(new LinkedHashMap<>(rows));
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Map<File, Long> getRows() {
+        return rows;
+    }
+
+    public long getTotalRows() {
+        return rows.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : getTotalRows() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %d files in %.1fs (%.0f rows/sec)",
+                getTotalRows(), rows.size(), elapsedMillis / 1000.0, getRowsPerSecond());
+    }
+}
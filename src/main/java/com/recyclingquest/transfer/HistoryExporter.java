@@ -0,0 +1,145 @@
+package com.recyclingquest.transfer;
+
+import com.recyclingquest.db.Database;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports recycle entries, trades and redeemed coupons, for one user or everyone, as one file per
+ * table. Rows go straight from a forward-only cursor to a buffered writer and are never collected,
+ * so memory use is the same for one user or the whole database. Every query is ordered along an
+ * index (or the rowid), so SQLite streams rows without a sort. All three tables are read in one
+ * read transaction and see the same snapshot. Each file is written under a temp name and moved
+ * into place once complete.
+ */
+public class HistoryExporter {
+    private static final int FETCH_SIZE = Integer.getInteger("recyclingquest.export.fetchSize", 1000);
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private static final class Table {
+        final String name;
+        final String allSql;
+        final String userSql;
+
+        Table(String name, String allSql, String userSql) {
+            this.name = name;
+            this.allSql = allSql;
+            this.userSql = userSql;
+        }
+    }
+
+    private static final String RECYCLE_COLUMNS = "SELECT id, user_id, category, weight_kg, photo_path, photo_hash, created_at FROM recycle_entries";
+    private static final String TRADE_COLUMNS = "SELECT id, user_id, item, amount, created_at FROM trade_entries";
+    private static final String COUPON_COLUMNS = "SELECT uc.id, uc.user_id, uc.coupon_id, c.level_required, c.company_name, " +
+            "c.description, c.discount, c.coupon_code, c.tier_points, uc.redeemed_at " +
+            "FROM user_coupons uc JOIN coupons c ON c.id = uc.coupon_id";
+
+    private static final List<Table> TABLES = List.of(
+            // Per user: idx_recycle_user_created already holds this order
+            new Table("recycle_entries", RECYCLE_COLUMNS + " ORDER BY id",
+                    RECYCLE_COLUMNS + " WHERE user_id = ? ORDER BY created_at DESC, id DESC"),
+            // Per user: idx_trade_user entries are ordered by rowid within a user
+            new Table("trade_entries", TRADE_COLUMNS + " ORDER BY id",
+                    TRADE_COLUMNS + " WHERE user_id = ? ORDER BY id"),
+            new Table("user_coupons", COUPON_COLUMNS + " ORDER BY uc.id",
+                    COUPON_COLUMNS + " WHERE uc.user_id = ? ORDER BY uc.id")
+    );
+
+    private final Database db;
+
+    public HistoryExporter(Database db) {
+        this.db = db;
+    }
+
+    /**
+     * Exports everyone's history into {@code dir}.
+     */
+    public ExportReport exportAll(File dir, TransferFormat format) throws IOException {
+        return export(dir, format, null);
+    }
+
+    /**
+     * Exports one user's history into {@code dir}; file names carry the user id.
+     */
+    public ExportReport exportUser(File dir, TransferFormat format, long userId) throws IOException {
+        return export(dir, format, userId);
+    }
+
+    private ExportReport export(File dir, TransferFormat format, Long userId) throws IOException {
+        long start = System.currentTimeMillis();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        Map<File, Long> rows = new LinkedHashMap<>();
+        try (Connection c = db.getConnection()) {
+            // One read transaction, so the files are consistent with each other
+            c.setAutoCommit(false);
+            try {
+                for (Table table : TABLES) {
+                    String name = table.name + (userId == null ? "" : "-user" + userId) + "." + format.getExtension();
+                    File file = new File(dir, name);
+                    rows.put(file, exportTable(c, table, userId, file, format));
+                }
+            } finally {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return new ExportReport(rows, System.currentTimeMillis() - start);
+    }
+
+    private long exportTable(Connection c, Table table, Long userId, File file, TransferFormat format) throws SQLException, IOException {
+        String sql = userId == null ? table.allSql : table.userSql;
+        File tmp = File.createTempFile(table.name + "-", ".tmp", file.getParentFile());
+        long count = 0;
+        try {
+            try (PreparedStatement ps = c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                if (userId != null) {
+                    ps.setLong(1, userId);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int n = meta.getColumnCount();
+                    List<String> columns = new ArrayList<>(n);
+                    for (int i = 1; i <= n; i++) {
+                        columns.add(meta.getColumnLabel(i));
+                    }
+                    BufferedWriter out = new BufferedWriter(
+                            new OutputStreamWriter(Files.newOutputStream(tmp.toPath()), StandardCharsets.UTF_8), BUFFER_CHARS);
+                    try (RowWriter writer = RowWriter.open(format, out, columns)) {
+                        Object[] values = new Object[n];
+                        while (rs.next()) {
+                            for (int i = 0; i < n; i++) {
+                                values[i] = rs.getObject(i + 1);
+                            }
+                            writer.write(values);
+                            count++;
+                        }
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+package com.recyclingquest.transfer;
+
+import java.util.List;
+
+/**
+ * Outcome (or progress so far) of a bulk import.
+ */
+public class ImportReport {
+    private final long read;
+    private final long imported;
+    private final long rejected;
+    private final List<String> errors;
+    private final long elapsedMillis;
+
+    public ImportReport(long read, long imported, long rejected, List<String> errors, long elapsedMillis) {
+        this.read = read;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = List.copyOf(errors);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /** Records read from the file. */
+    public long getRead() {
+        return read;
+    }
+
+    /** Records committed to the database. */
+    public long getImported() {
+        return imported;
+    }
+
+    /** Records skipped because they failed validation. */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /** The first few rejections, as "line N: reason". */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : imported * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("read=%d imported=%d rejected=%d in %.1fs (%.0f rows/sec)",
+                read, imported, rejected, elapsedMillis / 1000.0, getRowsPerSecond());
+    }
+}
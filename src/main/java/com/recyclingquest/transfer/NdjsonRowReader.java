@@ -0,0 +1,137 @@
+package com.recyclingquest.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Newline-delimited JSON: one flat object per line whose values are strings, numbers, booleans
+ * or null. Nested objects and arrays are rejected; the importer has no use for them.
+ */
+class NdjsonRowReader extends RowReader {
+    private String s;
+    private int pos;
+
+    NdjsonRowReader(BufferedReader in) {
+        super(in);
+    }
+
+    @Override
+    Map<String, String> next() throws IOException {
+        s = readLine();
+        if (s == null) {
+            return null;
+        }
+        pos = 0;
+        Map<String, String> row = new HashMap<>();
+        expect('{');
+        skipSpace();
+        if (peek() == '}') {
+            pos++;
+            return row;
+        }
+        while (true) {
+            skipSpace();
+            String key = string();
+            expect(':');
+            skipSpace();
+            row.put(key.toLowerCase(Locale.ROOT), value());
+            skipSpace();
+            char ch = take();
+            if (ch == '}') break;
+            if (ch != ',') throw error("expected ',' or '}'");
+        }
+        skipSpace();
+        if (pos != s.length()) {
+            throw error("unexpected text after the object");
+        }
+        return row;
+    }
+
+    private String value() {
+        char ch = peek();
+        if (ch == '"') {
+            return string();
+        }
+        if (ch == '{' || ch == '[') {
+            throw error("nested values are not supported");
+        }
+        int start = pos;
+        while (pos < s.length() && ",} \t".indexOf(s.charAt(pos)) < 0) {
+            pos++;
+        }
+        String literal = s.substring(start, pos);
+        if (literal.isEmpty()) {
+            throw error("missing value");
+        }
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char ch = take();
+            if (ch == '"') {
+                return sb.toString();
+            }
+            if (ch != '\\') {
+                sb.append(ch);
+                continue;
+            }
+            char esc = take();
+            switch (esc) {
+                case '"': case '\\': case '/': sb.append(esc); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > s.length()) throw error("bad \\u escape");
+                    try {
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad \\u escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("bad escape \\" + esc);
+            }
+        }
+    }
+
+    private void expect(char ch) {
+        skipSpace();
+        if (take() != ch) {
+            throw error("expected '" + ch + "'");
+        }
+    }
+
+    private char take() {
+        if (pos >= s.length()) {
+            throw error("unexpected end of line");
+        }
+        return s.charAt(pos++);
+    }
+
+    private char peek() {
+        if (pos >= s.length()) {
+            throw error("unexpected end of line");
+        }
+        return s.charAt(pos);
+    }
+
+    private void skipSpace() {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("invalid JSON at column " + (pos + 1) + ": " + message);
+    }
+}
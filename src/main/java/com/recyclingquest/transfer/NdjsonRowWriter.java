@@ -0,0 +1,57 @@
+package com.recyclingquest.transfer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * One JSON object per line, readable by {@link NdjsonRowReader}. Numbers are written bare,
+ * everything else as a JSON string.
+ */
+class NdjsonRowWriter extends RowWriter {
+    NdjsonRowWriter(Writer out, List<String> columns) {
+        super(out, columns);
+    }
+
+    @Override
+    void write(Object[] values) throws IOException {
+        out.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            string(columns.get(i));
+            out.write(':');
+            Object value = values[i];
+            if (value == null) {
+                out.write("null");
+            } else if (value instanceof Number) {
+                out.write(value.toString());
+            } else {
+                string(value.toString());
+            }
+        }
+        out.write("}\n");
+    }
+
+    private void string(String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (ch < 0x20) {
+                        out.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        out.write(ch);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
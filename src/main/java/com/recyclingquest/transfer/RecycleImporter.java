@@ -0,0 +1,278 @@
+package com.recyclingquest.transfer;
+
+import com.recyclingquest.dao.CouponDao;
+import com.recyclingquest.dao.RecycleDao;
+import com.recyclingquest.dao.UserDao;
+import com.recyclingquest.db.Database;
+import com.recyclingquest.model.RecycleEntry;
+import com.recyclingquest.service.RecyclingService;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import of recycling entries from CSV or newline-delimited JSON. The file is streamed one
+ * record at a time and committed in chunks, so memory use does not grow with the file size.
+ * Each chunk is one write job: a batched insert of its entries plus one points update (and
+ * coupon award) per user in the chunk, so a user's points always match their committed entries.
+ * The next chunk is parsed while the previous one commits.
+ *
+ * Recognized fields: user_id, category and weight_kg (required), photo_path and created_at
+ * (epoch millis or ISO-8601; defaults to the import time). Invalid records are counted and
+ * skipped. A chunk that fails to write stops the import; chunks committed before it are kept.
+ *
+ * Imported entries are not published as {@link com.recyclingquest.dao.RecycleChange}s; open
+ * history views pick them up on their next refresh.
+ */
+public class RecycleImporter {
+    private static final int DEFAULT_CHUNK_SIZE = Integer.getInteger("recyclingquest.import.chunkSize", 5000);
+    // Chunks queued on the writer at once: one committing while the next is being parsed
+    private static final int MAX_IN_FLIGHT = 2;
+    private static final int MAX_ERRORS = 20;
+
+    private final Database db;
+    private final RecycleDao recycleDao;
+    private final UserDao userDao;
+    private final CouponDao couponDao;
+    private final Map<String, String> categories = new HashMap<>();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public RecycleImporter(Database db, RecycleDao recycleDao, UserDao userDao, CouponDao couponDao) {
+        this.db = db;
+        this.recycleDao = recycleDao;
+        this.userDao = userDao;
+        this.couponDao = couponDao;
+        for (String category : RecycleEntry.CATEGORIES) {
+            categories.put(category.toLowerCase(Locale.ROOT), category);
+        }
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importFile(File file) throws IOException {
+        return importFile(file, TransferFormat.forFile(file), null);
+    }
+
+    /**
+     * Imports {@code file} and returns the final report. {@code progress}, if given, is called
+     * on the importing thread after each chunk commits.
+     */
+    public ImportReport importFile(File file, TransferFormat format, Consumer<ImportReport> progress) throws IOException {
+        long start = System.currentTimeMillis();
+        Set<Long> userIds = loadUserIds();
+        List<String> errors = new ArrayList<>();
+        long accepted = 0;
+        long rejected = 0;
+        long imported = 0;
+        Deque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+
+        // The reader is its own resource, so it is closed even if the row reader fails to construct
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+             RowReader rows = format == TransferFormat.CSV ? new CsvRowReader(in) : new NdjsonRowReader(in)) {
+            long now = System.currentTimeMillis();
+            Chunk chunk = new Chunk(chunkSize);
+            while (true) {
+                try {
+                    Map<String, String> row = rows.next();
+                    if (row == null) {
+                        break;
+                    }
+                    chunk.add(toEntry(row, userIds, now));
+                    accepted++;
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    if (errors.size() < MAX_ERRORS) {
+                        errors.add("line " + rows.lineNumber() + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+                if (chunk.entries.size() == chunkSize) {
+                    inFlight.add(submit(chunk));
+                    chunk = new Chunk(chunkSize);
+                    while (inFlight.size() >= MAX_IN_FLIGHT) {
+                        imported += await(inFlight.poll());
+                        if (progress != null) {
+                            progress.accept(new ImportReport(accepted + rejected, imported, rejected, errors, System.currentTimeMillis() - start));
+                        }
+                    }
+                }
+            }
+            if (!chunk.entries.isEmpty()) {
+                inFlight.add(submit(chunk));
+            }
+            while (!inFlight.isEmpty()) {
+                imported += await(inFlight.poll());
+            }
+        } finally {
+            // On failure, wait for chunks already queued so the report counts what committed
+            for (CompletableFuture<Chunk> f : inFlight) {
+                try {
+                    imported += await(f);
+                } catch (RuntimeException ignored) {
+                    // The first failure is the one being reported
+                }
+            }
+        }
+        ImportReport report = new ImportReport(accepted + rejected, imported, rejected, errors, System.currentTimeMillis() - start);
+        if (progress != null) {
+            progress.accept(report);
+        }
+        return report;
+    }
+
+    private Set<Long> loadUserIds() {
+        Set<Long> ids = new HashSet<>();
+        try (Connection c = db.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT id FROM users");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return ids;
+    }
+
+    private RecycleEntry toEntry(Map<String, String> row, Set<Long> userIds, long now) {
+        long userId;
+        try {
+            userId = Long.parseLong(required(row, "user_id"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("user_id is not a number");
+        }
+        if (!userIds.contains(userId)) {
+            throw new IllegalArgumentException("no user with id " + userId);
+        }
+        String category = categories.get(required(row, "category").toLowerCase(Locale.ROOT));
+        if (category == null) {
+            throw new IllegalArgumentException("unknown category '" + row.get("category").trim() + "'");
+        }
+        double weight;
+        try {
+            weight = Double.parseDouble(required(row, "weight_kg"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("weight_kg is not a number");
+        }
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("weight_kg must be a positive number");
+        }
+        String photo = optional(row, "photo_path");
+        String created = optional(row, "created_at");
+
+        RecycleEntry e = new RecycleEntry();
+        e.setUserId(userId);
+        e.setCategory(category);
+        e.setWeightKg(weight);
+        e.setPhotoPath(photo);
+        e.setCreatedAt(created == null ? now : parseTime(created));
+        return e;
+    }
+
+    private static String required(Map<String, String> row, String field) {
+        String value = optional(row, field);
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is missing");
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, String> row, String field) {
+        String value = row.get(field);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    static long parseTime(String value) {
+        if (value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value);
+        }
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // Not an instant; try local date-times below
+        }
+        try {
+            return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // Not a local date-time either
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("created_at '" + value + "' is neither epoch millis nor ISO-8601");
+        }
+    }
+
+    private CompletableFuture<Chunk> submit(Chunk chunk) {
+        return db.write(c -> {
+            recycleDao.insertBatch(c, chunk.entries);
+            for (Map.Entry<Long, Integer> user : chunk.points.entrySet()) {
+                // Users were checked up front; one deleted since then fails the chunk
+                int total = userDao.addPoints(c, user.getKey(), user.getValue())
+                        .orElseThrow(() -> new SQLException("User " + user.getKey() + " no longer exists"));
+                couponDao.awardEligibleCoupons(c, user.getKey(), total);
+            }
+            return chunk;
+        });
+    }
+
+    private int await(CompletableFuture<Chunk> future) {
+        Chunk chunk;
+        try {
+            chunk = future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+        return chunk.entries.size();
+    }
+
+    private static final class Chunk {
+        final List<RecycleEntry> entries;
+        // Points earned per user in this chunk
+        final Map<Long, Integer> points = new LinkedHashMap<>();
+
+        Chunk(int size) {
+            this.entries = new ArrayList<>(size);
+        }
+
+        void add(RecycleEntry e) {
+            entries.add(e);
+            points.merge(e.getUserId(), RecyclingService.calculateEcoPoints(e.getWeightKg()), Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.recyclingquest.transfer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads one record at a time as field name to raw value, so files of any size are read in
+ * constant memory. A malformed record is reported as an {@link IllegalArgumentException} and
+ * the reader can carry on with the next one.
+ */
+abstract class RowReader implements Closeable {
+    protected final BufferedReader in;
+    private long line;
+
+    RowReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the next record, or null at the end of the input.
+     */
+    abstract Map<String, String> next() throws IOException;
+
+    /**
+     * Line number of the record last returned by {@link #next()}, starting at 1.
+     */
+    long lineNumber() {
+        return line;
+    }
+
+    /**
+     * Next non-blank line, or null at the end of the input.
+     */
+    protected String readLine() throws IOException {
+        String s;
+        while ((s = in.readLine()) != null) {
+            line++;
+            if (!s.isBlank()) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,31 @@
+package com.recyclingquest.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes records one at a time, counterpart of {@link RowReader}. Values are Strings, Numbers or
+ * null, in the order of the column names given up front.
+ */
+abstract class RowWriter implements Closeable {
+    protected final Writer out;
+    protected final List<String> columns;
+
+    RowWriter(Writer out, List<String> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    static RowWriter open(TransferFormat format, Writer out, List<String> columns) throws IOException {
+        return format == TransferFormat.CSV ? new CsvRowWriter(out, columns) : new NdjsonRowWriter(out, columns);
+    }
+
+    abstract void write(Object[] values) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
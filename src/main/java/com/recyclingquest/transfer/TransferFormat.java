@@ -0,0 +1,34 @@
+package com.recyclingquest.transfer;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * File formats for bulk import and export.
+ */
+public enum TransferFormat {
+    CSV("csv"),
+    /** Newline-delimited JSON, one flat object per line. */
+    NDJSON("ndjson");
+
+    private final String extension;
+
+    TransferFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static TransferFormat forFile(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unknown format for " + file.getName() + " (expected .csv, .ndjson or .jsonl)");
+    }
+}
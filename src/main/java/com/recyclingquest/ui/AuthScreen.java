@@ -1,7 +1,9 @@
 package com.recyclingquest.ui;
 import com.recyclingquest.dao.UserDao;
-import com.recyclingquest.db.Database;
 import com.recyclingquest.model.User;
+import com.recyclingquest.security.CredentialService;
+import com.recyclingquest.security.LoginResult;
+import javafx.beans.binding.BooleanBinding;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
@@ -9,16 +11,18 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Alert;
 import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 public class AuthScreen {
     private final StackPane root = new StackPane();
     public enum Mode { LOGIN, CREATE }
-    public AuthScreen(Database db, Mode mode, Consumer<User> onLogin, Runnable onBack) {
+    public AuthScreen(UserDao userDao, CredentialService credentials, FxAsync async, Mode mode, Consumer<User> onLogin, Runnable onBack) {
         root.getStyleClass().add("screen-root");
         // Set background image
         try {
@@ -47,8 +51,6 @@ public class AuthScreen {
         form.setStyle("-fx-background-color: rgba(255,255,255,0.85); -fx-background-radius: 12; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.12), 8, 0, 0, 2);");
         StackPane.setAlignment(form, Pos.CENTER);
 
-        UserDao userDao = new UserDao(db);
-
         Label heading = new Label(mode == Mode.LOGIN ? "Login" : "Create Your Eco-Hero");
         heading.getStyleClass().add("heading");
 
@@ -60,10 +62,17 @@ public class AuthScreen {
 
         primary.setStyle("-fx-background-color: #2e7d32; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 6;");
         primary.setDefaultButton(true);
+        // Only this screen's work: a dashboard left behind may still be finishing its own
+        BooleanBinding working = async.busyProperty("login", "create-account");
+        primary.disableProperty().bind(working);
+
+        ProgressIndicator busy = new ProgressIndicator();
+        busy.setPrefSize(22, 22);
+        busy.visibleProperty().bind(working);
 
         // Layout rows
         int r = 0;
-        HBox topBar = new HBox(10, back, heading);
+        HBox topBar = new HBox(10, back, heading, busy);
         form.add(topBar, 0, r++, 2, 1);
 
         if (mode == Mode.LOGIN) {
@@ -82,39 +91,33 @@ public class AuthScreen {
                     return;
                 }
 
-                // Try email first; if not found, fallback to nickname for legacy accounts
-                var existing = userDao.findByEmail(em);
-                if (existing.isEmpty()) {
-                    System.out.println("No user found with email: " + em + ". Trying nickname.");
-                    existing = userDao.findByNickname(em);
-                } else {
-                    System.out.println("User found with email: " + em);
-                }
-
-                if (existing.isPresent()) {
-                    System.out.println("User found. Checking password.");
-                    if (pw.equals(existing.get().getPassword())) {
-                        System.out.println("Password matches. Logging in.");
-                        status.setText("");
-                        onLogin.accept(existing.get());
+                // Lookup by email or nickname (legacy accounts) and hashing run on the credential pool
+                async.track("login", () -> credentials.login(em, pw), result -> {
+                    if (result.getStatus() != LoginResult.Status.UNKNOWN_ACCOUNT) {
+                        System.out.println("User found. Checking password.");
+                        if (result.isSuccess()) {
+                            System.out.println("Password matches. Logging in.");
+                            status.setText("");
+                            onLogin.accept(result.getUser());
+                        } else {
+                            System.out.println("Invalid credentials for user: " + em);
+                            status.setText("Invalid credentials");
+                            Alert err = new Alert(Alert.AlertType.ERROR);
+                            err.setTitle("Login Failed");
+                            err.setHeaderText(null);
+                            err.setContentText("Incorrect password. Please try again.");
+                            err.show();
+                        }
                     } else {
-                        System.out.println("Invalid credentials for user: " + em);
-                        status.setText("Invalid credentials");
-                        Alert err = new Alert(Alert.AlertType.ERROR);
-                        err.setTitle("Login Failed");
+                        System.out.println("No user found for: " + em);
+                        status.setText("Account not found. Try your nickname or create one.");
+                        Alert err = new Alert(Alert.AlertType.WARNING);
+                        err.setTitle("Account Not Found");
                         err.setHeaderText(null);
-                        err.setContentText("Incorrect password. Please try again.");
+                        err.setContentText("We couldn't find that account. Try your nickname or create one.");
                         err.show();
                     }
-                } else {
-                    System.out.println("No user found for: " + em);
-                    status.setText("Account not found. Try your nickname or create one.");
-                    Alert err = new Alert(Alert.AlertType.WARNING);
-                    err.setTitle("Account Not Found");
-                    err.setHeaderText(null);
-                    err.setContentText("We couldn't find that account. Try your nickname or create one.");
-                    err.show();
-                }
+                }, ex -> status.setText("Login failed: " + ex.getMessage()));
             });
 
             form.add(emailL, 0, r); form.add(email, 1, r++);
@@ -160,37 +163,38 @@ public class AuthScreen {
                     err.show();
                     return; 
                 }
-                if (userDao.findByNickname(n).isPresent()) { 
-                    status.setText("Nickname already exists"); 
-                    Alert err = new Alert(Alert.AlertType.ERROR);
-                    err.setTitle("Nickname Taken");
-                    err.setHeaderText(null);
-                    err.setContentText("Please choose a different nickname.");
-                    err.show();
-                    return; 
-                }
-                if (userDao.findByEmail(em).isPresent()) { 
-                    status.setText("Email already in use"); 
-                    Alert err = new Alert(Alert.AlertType.ERROR);
-                    err.setTitle("Email In Use");
-                    err.setHeaderText(null);
-                    err.setContentText("That email is already registered. Try logging in.");
-                    err.show();
-                    return; 
-                }
-                try {
+                // Uniqueness checks and the insert run on the async pool, hashing on the credential pool
+                async.track("create-account", () -> CompletableFuture.runAsync(() -> {
+                    if (userDao.findByNickname(n).isPresent()) {
+                        throw new CreateRejected("Nickname already exists", "Nickname Taken", "Please choose a different nickname.");
+                    }
+                    if (userDao.findByEmail(em).isPresent()) {
+                        throw new CreateRejected("Email already in use", "Email In Use", "That email is already registered. Try logging in.");
+                    }
+                }, async.executor()).thenCompose(v -> credentials.hash(pw)).thenApplyAsync(hash -> {
                     System.out.println("Creating user: nick=" + n + ", city=" + c + ", avatar=" + a + ", email=" + em);
-                    User user = userDao.create(n, a, c, em, pw);
+                    return userDao.create(n, a, c, em, hash);
+                }, async.executor()), user -> {
                     status.setText("");
                     onLogin.accept(user);
-                } catch (RuntimeException ex) {
+                }, ex -> {
+                    if (ex instanceof CreateRejected) {
+                        CreateRejected rejected = (CreateRejected) ex;
+                        status.setText(rejected.getMessage());
+                        Alert err = new Alert(Alert.AlertType.ERROR);
+                        err.setTitle(rejected.title);
+                        err.setHeaderText(null);
+                        err.setContentText(rejected.detail);
+                        err.show();
+                        return;
+                    }
                     status.setText("Failed to create account: " + ex.getMessage());
                     Alert err = new Alert(Alert.AlertType.ERROR);
                     err.setTitle("Create Account Failed");
                     err.setHeaderText(null);
                     err.setContentText("Could not create account. " + ex.getMessage());
                     err.show();
-                }
+                });
             });
 
             form.add(nickL, 0, r); form.add(nick, 1, r++);
@@ -211,4 +215,18 @@ public class AuthScreen {
     }
 
     public Parent getRoot() { return root; }
+
+    // Validation failure raised in the background and shown as an alert on the FX thread
+    private static final class CreateRejected extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final String title;
+        private final String detail;
+
+        CreateRejected(String status, String title, String detail) {
+            super(status);
+            this.title = title;
+            this.detail = detail;
+        }
+    }
 }
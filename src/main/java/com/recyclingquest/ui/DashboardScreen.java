@@ -1,53 +1,92 @@
 package com.recyclingquest.ui;
 
 import com.recyclingquest.dao.CouponDao;
+import com.recyclingquest.dao.RecycleChange;
 import com.recyclingquest.dao.RecycleDao;
+import com.recyclingquest.dao.RollupDao;
 import com.recyclingquest.dao.SpotDao;
+import com.recyclingquest.dao.StatsDao;
 import com.recyclingquest.dao.UserDao;
 import com.recyclingquest.db.Database;
+import com.recyclingquest.media.PageDiskCache;
+import com.recyclingquest.media.PhotoStore;
+import com.recyclingquest.media.ThumbnailService;
+import com.recyclingquest.dao.CouponTierCatalog;
 import com.recyclingquest.model.Coupon;
+import com.recyclingquest.model.CouponTier;
+import com.recyclingquest.model.LeaderboardEntry;
+import com.recyclingquest.model.CategoryStats;
 import com.recyclingquest.model.RecycleEntry;
+import com.recyclingquest.model.RollupPoint;
 import com.recyclingquest.model.User;
+import com.recyclingquest.service.Leaderboard;
+import com.recyclingquest.service.RecordResult;
+import com.recyclingquest.service.RecyclingService;
+import com.recyclingquest.service.RollupJob;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.WritableImage;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.scene.web.WebView;
 import javafx.concurrent.Worker;
-import javafx.concurrent.Task;
-import javafx.embed.swing.SwingFXUtils;
 
 import java.io.File;
-import java.io.InputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
-import java.awt.image.BufferedImage;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class DashboardScreen {
     private final BorderPane root = new BorderPane();
     private final long userId;
     private final RecycleDao recycleDao;
+    private final StatsDao statsDao;
     private final UserDao userDao;
     private final CouponDao couponDao;
+    private final RecyclingService recyclingService;
+    private final Leaderboard leaderboard;
+    private final RollupJob rollupJob;
+    private final RollupDao rollupDao;
+    private Runnable leaderboardReload;
+    private final FxAsync async;
     private final Runnable onBack;
     private TableView<RecycleEntry> historyTable;
+    private Label statsLabel;
+    private LazyHistoryList historyItems;
+    private final StartupTimeline timeline = new StartupTimeline("dashboard");
+    private final ThumbnailService thumbnails;
+    private final PhotoStore photoStore;
+    // Removed again in dispose(), so a closed dashboard is not kept alive by the DAO
+    private final List<Consumer<RecycleChange>> changeListeners = new ArrayList<>();
+    private RulebookViewer rulebook;
 
-    public DashboardScreen(Database db, long userId, Runnable onBack) {
+    public DashboardScreen(Database db, UserDao userDao, CouponTierCatalog tierCatalog, Leaderboard leaderboard, RollupJob rollupJob,
+                           ThumbnailService thumbnails, FxAsync async, long userId, Runnable onBack) {
         root.getStyleClass().add("screen-root");
         
-        // Set background image
+        // Set background image; decoded in the background so it does not delay the first frame
         try {
-            Image bgImage = new Image(Objects.requireNonNull(getClass().getResource("/images/bg2.jpeg")).toExternalForm());
+            Image bgImage = new Image(Objects.requireNonNull(getClass().getResource("/images/bg2.jpeg")).toExternalForm(), true);
             BackgroundSize bgSize = new BackgroundSize(100, 100, true, true, false, true);
             BackgroundImage backgroundImage = new BackgroundImage(
                 bgImage,
@@ -61,56 +100,98 @@ public class DashboardScreen {
             System.err.println("Could not load background image: " + e.getMessage());
         }
         
-        this.userDao = new UserDao(db);
+        this.userDao = userDao;
+        this.leaderboard = leaderboard;
+        this.rollupJob = rollupJob;
+        this.rollupDao = new RollupDao(db);
         this.recycleDao = new RecycleDao(db);
-        this.couponDao = new CouponDao(db);
+        this.statsDao = new StatsDao(db);
+        this.couponDao = new CouponDao(db, tierCatalog);
+        this.recyclingService = new RecyclingService(db, recycleDao, userDao, couponDao);
+        this.thumbnails = thumbnails;
+        this.photoStore = new PhotoStore(new File(Database.dataDir(), "photos"));
+        // Make the thumbnail as soon as an entry with a photo is saved, before the table asks for it
+        listen(change -> thumbnails.load(photoSource(change.getEntry())));
+        // Our own points just moved; Refresh shows everyone else's, and rescans for points written
+        // by other processes (the import tool, another instance)
+        listen(change -> Platform.runLater(() -> {
+            if (leaderboardReload != null) leaderboardReload.run();
+        }));
+        this.async = async;
         this.userId = userId;
         this.onBack = onBack;
         SpotDao spotDao = new SpotDao(db);
-        spotDao.seedIfEmpty();
+        // Load the tier catalog up front so in-memory tier lookups never hit the DB on the FX thread
+        async.run("coupon-tiers", () -> couponDao.getTierCatalog().tiers(), null, null);
+        timeline.mark("services ready");
 
         TabPane tabs = new TabPane();
         tabs.setStyle("-fx-background-color: transparent;");
-        
-        Tab recycleTab = new Tab("Recycle", buildRecycleTab());
-        Tab historyTab = new Tab("History", buildHistoryTab());
-        Tab tradeTab = new Tab("ScrapTrade", buildTradeTab());
-        Tab rulebookTab = new Tab("Rulebook", buildRulebookTab());
-        Tab spotsTab = new Tab("Recycling Spots", buildSpotsTab(spotDao));
-        Tab couponsTab = new Tab("Coupons", buildCouponsTab());
 
-        tabs.getTabs().addAll(recycleTab, historyTab, tradeTab, rulebookTab, spotsTab, couponsTab);
+        // Tabs are built on first selection: the web views, the rulebook PDF and the DB-backed
+        // tabs cost nothing until the user opens them
+        tabs.getTabs().addAll(
+                lazyTab("Recycle", this::buildRecycleTab),
+                lazyTab("History", this::buildHistoryTab),
+                lazyTab("ScrapTrade", this::buildTradeTab),
+                lazyTab("Rulebook", this::buildRulebookTab),
+                lazyTab("Recycling Spots", () -> buildSpotsTab(spotDao)),
+                lazyTab("Coupons", this::buildCouponsTab),
+                lazyTab("Leaderboard", this::buildLeaderboardTab),
+                lazyTab("Trends", this::buildTrendsTab));
         tabs.getTabs().forEach(t -> t.setClosable(false));
 
         // Top bar with Back button
         Button back = new Button("Back");
         back.setOnAction(e -> { if (this.onBack != null) this.onBack.run(); });
-        HBox top = new HBox(10, back, new Label("Dashboard"));
+        ProgressIndicator busy = new ProgressIndicator();
+        busy.setPrefSize(22, 22);
+        busy.visibleProperty().bind(async.busyProperty());
+        HBox top = new HBox(10, back, new Label("Dashboard"), busy);
         top.setPadding(new Insets(6));
 
         root.setTop(top);
         root.setCenter(tabs);
         root.setPadding(new Insets(10));
+        timeline.mark("screen built");
     }
 
-    private int calculateEcoPoints(double weight) {
-        if (weight <= 0.05) {
-            return 1;
-        } else if (weight <= 0.25) {
-            return 3;
-        } else if (weight <= 0.5) {
-            return 5;
-        } else if (weight <= 1.0) {
-            return 10;
-        } else if (weight <= 2.0) {
-            return 20;
-        } else if (weight <= 5.0) {
-            return 40;
-        } else {
-            return 70;
+    /**
+     * Timings from construction to the first frame; MainApp marks the frame once the scene shows.
+     */
+    public StartupTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Detaches the screen from the shared services. Call it once the dashboard is left.
+     */
+    public void dispose() {
+        changeListeners.forEach(recycleDao::removeChangeListener);
+        changeListeners.clear();
+        if (rulebook != null) {
+            rulebook.close();
+            rulebook = null;
         }
     }
 
+    private void listen(Consumer<RecycleChange> listener) {
+        changeListeners.add(listener);
+        recycleDao.addChangeListener(listener);
+    }
+
+    private Tab lazyTab(String title, Supplier<Parent> builder) {
+        Tab tab = new Tab(title);
+        // Also fires for the first tab, which the TabPane selects when the tabs are added
+        tab.selectedProperty().addListener((obs, was, selected) -> {
+            if (selected && tab.getContent() == null) {
+                tab.setContent(builder.get());
+                timeline.mark("tab " + title + " built");
+            }
+        });
+        return tab;
+    }
+
     private Parent buildRecycleTab() {
         // Main container - centered
         VBox mainContainer = new VBox();
@@ -183,35 +264,35 @@ public class DashboardScreen {
         status.setStyle("-fx-font-size: 16px;");
 
         submit.setOnAction(e -> {
+            double w;
             try {
-                // Ensure the user exists before inserting to satisfy FK constraint
-                if (userDao.findById(this.userId).isEmpty()) {
-                    status.setText("Error: You're not logged in. Please log in or create an account first.");
-                    status.setStyle("-fx-text-fill: #f44336; -fx-font-weight: bold; -fx-font-size: 16px;");
-                    new Alert(Alert.AlertType.ERROR, "No account found for this session. Please go back and log in or create an account.").show();
-                    return;
-                }
-                double w = Double.parseDouble(weight.getText().trim());
-                RecycleEntry re = new RecycleEntry();
-                re.setUserId(this.userId);
-                re.setCategory(category.getValue());
-                re.setWeightKg(w);
-                re.setPhotoPath(photoPath.getText().trim());
-                re.setCreatedAt(Instant.now().toEpochMilli());
-                recycleDao.insert(re);
-
-                int points = calculateEcoPoints(w);
-                userDao.addPoints(this.userId, points);
-
-                // Update UI to show current and total points
-                User updatedUser = userDao.findById(this.userId).orElse(null);
-                int totalPoints = (updatedUser != null) ? updatedUser.getPoints() : 0;
+                w = Double.parseDouble(weight.getText().trim());
+            } catch (NumberFormatException ex) {
+                status.setText("Error: " + ex.getMessage());
+                status.setStyle("-fx-text-fill: #f44336; -fx-font-weight: bold; -fx-font-size: 16px;");
+                return;
+            }
+            RecycleEntry re = new RecycleEntry();
+            re.setUserId(this.userId);
+            re.setCategory(category.getValue());
+            re.setWeightKg(w);
+            re.setPhotoPath(photoPath.getText().trim());
+            re.setCreatedAt(Instant.now().toEpochMilli());
+
+            // Insert, points and coupon awards happen in one transaction
+            async.run("submit-recycling", () -> {
+                storePhoto(re);
+                return recyclingService.recordEntry(re);
+            }, result -> {
+                int points = result.getPointsAwarded();
+                int totalPoints = result.getTotalPoints();
 
                 status.setText(String.format("Saved! +%d eco points. Total points: %d", points, totalPoints));
                 status.setStyle("-fx-text-fill: #4CAF50; -fx-font-weight: bold; -fx-font-size: 16px;");
+                weight.clear();
+                photoPath.clear();
 
-                // Automatically award eligible coupons
-                java.util.List<Coupon> newlyAwarded = couponDao.awardEligibleCoupons(this.userId, totalPoints);
+                java.util.List<Coupon> newlyAwarded = result.getNewCoupons();
                 if (!newlyAwarded.isEmpty()) {
                     StringBuilder awardedMsg = new StringBuilder("Congratulations! You've earned new coupons:\n\n");
                     for (Coupon coupon : newlyAwarded) {
@@ -226,8 +307,7 @@ public class DashboardScreen {
                     alert.showAndWait();
                 } else {
                     // Show next unlockable coupon if no new ones were awarded
-                    Optional<Coupon> nextCoupon = couponDao.getNextUnlockableCoupon(totalPoints);
-                    nextCoupon.ifPresent(coupon -> {
+                    async.run(() -> couponDao.getNextUnlockableCoupon(totalPoints), nextCoupon -> nextCoupon.ifPresent(coupon -> {
                         Alert alert = new Alert(Alert.AlertType.INFORMATION);
                         alert.setTitle("Next Goal");
                         alert.setHeaderText("You can unlock this coupon next! Keep recycling to earn it.");
@@ -238,16 +318,18 @@ public class DashboardScreen {
                             coupon.getDiscount()
                         ));
                         alert.showAndWait();
-                    });
+                    }), null);
+                }
+            }, ex -> {
+                if (ex instanceof NoSuchElementException) {
+                    status.setText("Error: You're not logged in. Please log in or create an account first.");
+                    status.setStyle("-fx-text-fill: #f44336; -fx-font-weight: bold; -fx-font-size: 16px;");
+                    new Alert(Alert.AlertType.ERROR, "No account found for this session. Please go back and log in or create an account.").show();
+                    return;
                 }
-
-                weight.clear();
-                photoPath.clear();
-                reloadHistory();
-            } catch (Exception ex) {
                 status.setText("Error: " + ex.getMessage());
                 status.setStyle("-fx-text-fill: #f44336; -fx-font-weight: bold; -fx-font-size: 16px;");
-            }
+            });
         });
         
         formBox.getChildren().addAll(titleLabel, category, weight, photoRow, submit, status);
@@ -266,16 +348,33 @@ public class DashboardScreen {
         box.setPadding(new Insets(10));
         box.setStyle("-fx-background-color: transparent;");
 
-        historyTable = new TableView<>();
+        // Rows are paged in from the DB as they scroll into view; only a bounded window is kept
+        historyItems = new LazyHistoryList(recycleDao, async, this.userId, 50, 20);
+        // Submits and edits arrive as single-row changes, in commit order on the DB writer thread
+        listen(change -> Platform.runLater(() -> {
+            historyItems.apply(change);
+            reloadStats();
+        }));
+        // Totals come from user_stats, a few rows per user, never from scanning the history
+        statsLabel = new Label("Loading totals...");
+        statsLabel.setWrapText(true);
+        historyTable = new TableView<>(historyItems);
+        historyTable.setFixedCellSize(28);
         TableColumn<RecycleEntry, String> catCol = new TableColumn<>("Category");
-        catCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getCategory()));
+        catCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                LazyHistoryList.isPlaceholder(c.getValue()) ? "Loading..." : c.getValue().getCategory()));
         TableColumn<RecycleEntry, String> wCol = new TableColumn<>("Weight (kg)");
-        wCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(String.valueOf(c.getValue().getWeightKg())));
+        wCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                LazyHistoryList.isPlaceholder(c.getValue()) ? "" : String.valueOf(c.getValue().getWeightKg())));
         TableColumn<RecycleEntry, String> pCol = new TableColumn<>("Photo");
-        pCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getPhotoPath() == null ? "" : c.getValue().getPhotoPath()));
+        pCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                LazyHistoryList.isPlaceholder(c.getValue()) || c.getValue().getPhotoPath() == null ? "" : c.getValue().getPhotoPath()));
+        pCol.setCellFactory(col -> new PhotoThumbnailCell(thumbnails, this::photoSource));
         historyTable.getColumns().add(catCol);
         historyTable.getColumns().add(wCol);
         historyTable.getColumns().add(pCol);
+        // The backing list is read-only and already ordered newest first
+        historyTable.getColumns().forEach(col -> col.setSortable(false));
 
         Button refresh = new Button("Refresh");
         refresh.setOnAction(e -> reloadHistory());
@@ -283,10 +382,10 @@ public class DashboardScreen {
 
         Button edit = new Button("Edit Selected");
         edit.setDisable(true);
-        historyTable.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> edit.setDisable(n == null));
+        historyTable.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> edit.setDisable(LazyHistoryList.isPlaceholder(n)));
         edit.setOnAction(e -> {
             RecycleEntry selected = historyTable.getSelectionModel().getSelectedItem();
-            if (selected == null) return;
+            if (LazyHistoryList.isPlaceholder(selected)) return;
             Dialog<Void> dialog = new Dialog<>();
             dialog.setTitle("Edit Recycling Entry");
             dialog.getDialogPane().getButtonTypes().addAll(ButtonType.CANCEL, ButtonType.OK);
@@ -310,11 +409,21 @@ public class DashboardScreen {
                 if (bt == ButtonType.OK) {
                     try {
                         double newW = Double.parseDouble(weightField.getText().trim());
-                        selected.setCategory(categoryField.getValue());
-                        selected.setWeightKg(newW);
-                        selected.setPhotoPath(photoField.getText().trim());
-                        recycleDao.update(selected);
-                        reloadHistory();
+                        RecycleEntry changed = new RecycleEntry();
+                        changed.setId(selected.getId());
+                        changed.setUserId(selected.getUserId());
+                        changed.setCreatedAt(selected.getCreatedAt());
+                        changed.setCategory(categoryField.getValue());
+                        changed.setWeightKg(newW);
+                        changed.setPhotoPath(photoField.getText().trim());
+                        boolean samePhoto = Objects.equals(changed.getPhotoPath(), selected.getPhotoPath());
+                        changed.setPhotoHash(samePhoto ? selected.getPhotoHash() : null);
+                        // The persisted row replaces the selected one through the change feed
+                        async.run(() -> {
+                            if (!samePhoto) storePhoto(changed);
+                            return recycleDao.update(changed);
+                        }, null,
+                                ex -> new Alert(Alert.AlertType.ERROR, "Could not save entry: " + ex.getMessage()).showAndWait());
                     } catch (Exception ex) {
                         new Alert(Alert.AlertType.ERROR, "Invalid input: " + ex.getMessage()).showAndWait();
                     }
@@ -360,7 +469,7 @@ public class DashboardScreen {
         ecoPointsPanel.setPrefWidth(320);
 
         HBox actions = new HBox(8, refresh, edit);
-        box.getChildren().addAll(new Label("History"), mainContent, actions);
+        box.getChildren().addAll(new Label("History"), statsLabel, mainContent, actions);
         return box;
     }
 
@@ -376,9 +485,11 @@ public class DashboardScreen {
         VBox panel = buildEcoPointsPanel(currentPointsLabel, couponLabel);
 
         // Initialize the panel with the user's total points
-        int userPoints = userDao.findById(this.userId).map(User::getPoints).orElse(0);
-        currentPointsLabel.setText("Your Total Points: " + userPoints);
-        couponLabel.setText("🎫 Next Coupon: " + getCouponSuggestion(userPoints));
+        currentPointsLabel.setText("Your Total Points: ...");
+        async.run(() -> userDao.findById(this.userId).map(User::getPoints).orElse(0), userPoints -> {
+            currentPointsLabel.setText("Your Total Points: " + userPoints);
+            couponLabel.setText("🎫 Next Coupon: " + getCouponSuggestion(userPoints));
+        }, ex -> currentPointsLabel.setText("Could not load points: " + ex.getMessage()));
 
         return panel;
     }
@@ -417,22 +528,44 @@ public class DashboardScreen {
     }
 
     private void handleRedeemCoupon(Label currentPointsLabel, Label couponLabel) {
-        // Use the user's total points for redemption logic
-        int totalPoints = userDao.findById(this.userId).map(User::getPoints).orElse(0);
+        async.run("redeem-offer", () -> {
+            // Use the user's total points for redemption logic
+            int totalPoints = userDao.findById(this.userId).map(User::getPoints).orElse(0);
+            OptionalInt minPoints = couponDao.getTierCatalog().lowestTierPoints();
+            if (minPoints.isEmpty() || totalPoints < minPoints.getAsInt()) {
+                return new RedeemOffer(totalPoints, minPoints, null, false);
+            }
+            Coupon coupon = couponDao.getCouponByPoints(totalPoints).orElse(null);
+            boolean redeemed = coupon != null && couponDao.hasUserRedeemedCoupon(this.userId, coupon.getCouponCode());
+            return new RedeemOffer(totalPoints, minPoints, coupon, redeemed);
+        }, offer -> confirmRedeem(offer, currentPointsLabel, couponLabel),
+                ex -> new Alert(Alert.AlertType.ERROR, "Could not load coupons: " + ex.getMessage()).showAndWait());
+    }
+
+    private void confirmRedeem(RedeemOffer offer, Label currentPointsLabel, Label couponLabel) {
+        int totalPoints = offer.totalPoints;
+
+        if (offer.minPoints.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("No Coupons");
+            alert.setHeaderText(null);
+            alert.setContentText("There are no coupons to redeem yet. Please check back later.");
+            alert.showAndWait();
+            return;
+        }
 
         // Check if user has enough points
-        if (totalPoints < 20) {
+        if (totalPoints < offer.minPoints.getAsInt()) {
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("Insufficient Points");
             alert.setHeaderText(null);
-            alert.setContentText("You need at least 20 points to redeem a coupon. Keep recycling to earn more points!");
+            alert.setContentText("You need at least " + offer.minPoints.getAsInt() + " points to redeem a coupon. Keep recycling to earn more points!");
             alert.showAndWait();
             return;
         }
         
         // Get coupon for these points
-        Optional<Coupon> couponOpt = couponDao.getCouponByPoints(totalPoints);
-        if (couponOpt.isEmpty()) {
+        if (offer.coupon == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Error");
             alert.setHeaderText(null);
@@ -441,10 +574,10 @@ public class DashboardScreen {
             return;
         }
         
-        Coupon coupon = couponOpt.get();
+        Coupon coupon = offer.coupon;
         
         // Check if already redeemed
-        if (couponDao.hasUserRedeemedCoupon(this.userId, coupon.getCouponCode())) {
+        if (offer.alreadyRedeemed) {
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Already Redeemed");
             alert.setHeaderText(null);
@@ -466,43 +599,45 @@ public class DashboardScreen {
         
         confirmAlert.showAndWait().ifPresent(buttonType -> {
             if (buttonType == ButtonType.OK) {
-                try {
-                    // Redeem the coupon
-                    couponDao.redeemCouponForUser(this.userId, coupon);
-                    
-                    // Add to user's coupon list
-                    userDao.findById(this.userId).ifPresent(user -> {
-                        user.addCoupon(coupon);
-                    });
-                    
+                // The code actually claimed can differ from the one offered if another user took it first
+                async.run("redeem-coupon", () -> couponDao.redeemCouponForUser(this.userId, coupon), redeemed -> {
                     // Show success dialog with coupon code
                     Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
                     successAlert.setTitle("Coupon Redeemed!");
                     successAlert.setHeaderText("🎉 Congratulations!");
                     successAlert.setContentText(
                         "Your coupon has been redeemed successfully!\n\n" +
-                        "Coupon: " + coupon.getDescription() + "\n" +
-                        "Coupon Code: " + coupon.getCouponCode() + "\n" +
-                        "Discount: " + coupon.getDiscount() + "\n" +
-                        (coupon.getExpiryDate() != null ? "Expires: " + coupon.getExpiryDate() + "\n" : "") +
+                        "Coupon: " + redeemed.getDescription() + "\n" +
+                        "Coupon Code: " + redeemed.getCouponCode() + "\n" +
+                        "Discount: " + redeemed.getDiscount() + "\n" +
+                        (redeemed.getExpiryDate() != null ? "Expires: " + redeemed.getExpiryDate() + "\n" : "") +
                         "\nSave this code to use at checkout!"
                     );
                     successAlert.showAndWait();
                     
                     // Update the panel
                     updateEcoPointsPanel(currentPointsLabel, couponLabel);
-                } catch (Exception ex) {
+                }, ex -> {
                     Alert errorAlert = new Alert(Alert.AlertType.ERROR);
                     errorAlert.setTitle("Error");
                     errorAlert.setHeaderText(null);
                     errorAlert.setContentText("Failed to redeem coupon: " + ex.getMessage());
                     errorAlert.showAndWait();
-                }
+                });
             }
         });
     }
 
     private void showAllCouponsDialog() {
+        async.run("all-coupons", () -> {
+            // Loads the catalog too, if it is not cached yet
+            couponDao.getTierCatalog().tiers();
+            return userDao.findById(this.userId).map(User::getPoints).orElse(0);
+        }, this::showAllCouponsDialog,
+                ex -> new Alert(Alert.AlertType.ERROR, "Could not load coupons: " + ex.getMessage()).showAndWait());
+    }
+
+    private void showAllCouponsDialog(int userPoints) {
         Dialog<Void> dialog = new Dialog<>();
         dialog.setTitle("All Available Coupons");
         dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
@@ -516,22 +651,13 @@ public class DashboardScreen {
         header.setStyle("-fx-font-size: 18px; -fx-font-weight: bold; -fx-text-fill: #2e7d32;");
         contentBox.getChildren().add(header);
         
-        // Get user's current points
-        int userPoints = userDao.findById(this.userId).map(User::getPoints).orElse(0);
-        
         // Show coupon tiers
-        String[] couponTiers = {
-            "5% off Recycled Stationery - 20 points",
-            "10% off Eco Toiletries - 40 points",
-            "15% off Recycled T-shirt - 70 points",
-            "Free Eco Tote Bag - 100 points",
-            "20% off LED Bulb - 150 points",
-            "Plant a Tree Certificate - 250 points",
-            "30% off on eco products - 400+ points"
-        };
-        
-        for (String tier : couponTiers) {
-            Label tierLabel = new Label(tier);
+        CouponTierCatalog catalog = couponDao.getTierCatalog();
+        java.util.List<CouponTier> couponTiers = catalog.tiers();
+        for (int i = 0; i < couponTiers.size(); i++) {
+            CouponTier tier = couponTiers.get(i);
+            String suffix = i == couponTiers.size() - 1 ? "+ points" : " points";
+            Label tierLabel = new Label(tier.getDescription() + " - " + tier.getPoints() + suffix);
             tierLabel.setStyle("-fx-font-size: 14px; -fx-padding: 5px;");
             contentBox.getChildren().add(tierLabel);
         }
@@ -540,13 +666,14 @@ public class DashboardScreen {
         currentPointsLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: #4CAF50; -fx-padding: 10px 0px;");
         contentBox.getChildren().add(currentPointsLabel);
         
-        if (userPoints >= 20) {
+        OptionalInt lowest = catalog.lowestTierPoints();
+        if (lowest.isPresent() && userPoints >= lowest.getAsInt()) {
             String suggestion = getCouponSuggestion(userPoints);
             Label suggestionLabel = new Label("You can redeem: " + suggestion);
             suggestionLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #2e7d32; -fx-padding: 5px;");
             contentBox.getChildren().add(suggestionLabel);
         } else {
-            Label suggestionLabel = new Label("Keep recycling to earn your first coupon at 20 points!");
+            Label suggestionLabel = new Label(getCouponSuggestion(userPoints));
             suggestionLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666; -fx-padding: 5px;");
             contentBox.getChildren().add(suggestionLabel);
         }
@@ -571,22 +698,22 @@ public class DashboardScreen {
         // Calculate total points from all selected items
         int totalPoints = 0;
         for (RecycleEntry entry : selectedItems) {
-            totalPoints += calculateEcoPoints(entry.getWeightKg());
+            if (LazyHistoryList.isPlaceholder(entry)) continue;
+            totalPoints += RecyclingService.calculateEcoPoints(entry.getWeightKg());
         }
         
         currentPointsLabel.setText("Current Points: " + totalPoints);
-        couponLabel.setText("🎫 Available Coupon: " + getCouponSuggestion(totalPoints));
+        int points = totalPoints;
+        // The tier lookup is in memory once the catalog is loaded; off the FX thread in case it is not yet
+        async.run(() -> getCouponSuggestion(points), suggestion -> couponLabel.setText("🎫 Available Coupon: " + suggestion), null);
     }
     
     private String getCouponSuggestion(int points) {
-        if (points >= 400) return "30% off on eco products";
-        else if (points >= 250) return "Plant a Tree Certificate";
-        else if (points >= 150) return "20% off LED Bulb";
-        else if (points >= 100) return "Free Eco Tote Bag";
-        else if (points >= 70) return "15% off Recycled T-shirt";
-        else if (points >= 40) return "10% off Eco Toiletries";
-        else if (points >= 20) return "5% off Recycled Stationery";
-        else return "Keep recycling to earn your first coupon at 20 points!";
+        CouponTier tier = couponDao.getTierCatalog().tierFor(points);
+        if (tier != null) return tier.getDescription();
+        OptionalInt lowest = couponDao.getTierCatalog().lowestTierPoints();
+        if (lowest.isEmpty()) return "No coupons are available yet.";
+        return "Keep recycling to earn your first coupon at " + lowest.getAsInt() + " points!";
     }
 
     private Parent buildTradeTab() {
@@ -604,18 +731,6 @@ public class DashboardScreen {
         pane.setPadding(new Insets(4));
         pane.setStyle("-fx-background-color: transparent;");
         
-        // Center area for PDF pages
-        ScrollPane scrollPane = new ScrollPane();
-        scrollPane.setFitToWidth(true);
-        scrollPane.setStyle("-fx-background-color: transparent;");
-        scrollPane.setBackground(Background.EMPTY);
-        
-        VBox contentBox = new VBox(10);
-        contentBox.setPadding(new Insets(10));
-        contentBox.setAlignment(Pos.TOP_CENTER);
-        contentBox.setStyle("-fx-background-color: transparent;");
-        scrollPane.setContent(contentBox);
-        
         // Loading indicator
         ProgressIndicator loadingIndicator = new ProgressIndicator();
         loadingIndicator.setStyle("-fx-progress-color: #4CAF50;");
@@ -628,68 +743,14 @@ public class DashboardScreen {
         
         pane.setCenter(loadingBox);
         
-        // Load PDF in background
-        Task<VBox> loadPdfTask = new Task<VBox>() {
-            @Override
-            protected VBox call() throws Exception {
-                try (InputStream pdfStream = getClass().getResourceAsStream("/images/rulebook.pdf")) {
-                    if (pdfStream == null) {
-                        throw new Exception("PDF file not found in resources");
-                    }
-                    
-                    // Read PDF into byte array
-                    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                    byte[] data = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = pdfStream.read(data, 0, data.length)) != -1) {
-                        buffer.write(data, 0, bytesRead);
-                    }
-                    byte[] pdfBytes = buffer.toByteArray();
-                    
-                    try (PDDocument document = Loader.loadPDF(pdfBytes)) {
-                        PDFRenderer pdfRenderer = new PDFRenderer(document);
-                        int pageCount = document.getNumberOfPages();
-                        
-                        VBox pagesBox = new VBox(10);
-                        pagesBox.setAlignment(Pos.TOP_CENTER);
-                        pagesBox.setPadding(new Insets(10));
-                        
-                        // Render all pages
-                        for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
-                            BufferedImage bufferedImage = pdfRenderer.renderImageWithDPI(pageIndex, 150);
-                            WritableImage fxImage = SwingFXUtils.toFXImage(bufferedImage, null);
-                            ImageView imageView = new ImageView(fxImage);
-                            imageView.setPreserveRatio(true);
-                            imageView.setFitWidth(800); // Set max width
-                            pagesBox.getChildren().add(imageView);
-                        }
-                        
-                        return pagesBox;
-                    }
-                }
-            }
-        };
-        
-        loadPdfTask.setOnSucceeded(e -> {
-            try {
-                VBox pagesBox = loadPdfTask.getValue();
-                contentBox.getChildren().setAll(pagesBox.getChildren());
-                scrollPane.setContent(contentBox);
-                pane.setCenter(scrollPane);
-            } catch (Exception ex) {
-                VBox errorBox = new VBox(10);
-                errorBox.setAlignment(Pos.CENTER);
-                errorBox.setPadding(new Insets(20));
-                errorBox.setStyle("-fx-background-color: transparent;");
-                Label errorLabel = new Label("Error displaying PDF: " + ex.getMessage());
-                errorLabel.setStyle("-fx-text-fill: #333333;");
-                errorBox.getChildren().add(errorLabel);
-                pane.setCenter(errorBox);
-            }
-        });
-        
-        loadPdfTask.setOnFailed(e -> {
-            Throwable ex = loadPdfTask.getException();
+        // Pages are rendered as they scroll into view; rendered pages share a 64 MB budget in
+        // memory and a 100 MB budget on disk (data/cache/rulebook)
+        long cacheBytes = Long.getLong("recyclingquest.rulebook.cacheMb", 64) * 1024 * 1024;
+        long diskBytes = Long.getLong("recyclingquest.rulebook.diskCacheMb", 100) * 1024 * 1024;
+        PageDiskCache diskCache = new PageDiskCache(new File(Database.dataDir(), "cache" + File.separator + "rulebook"), diskBytes);
+        RulebookViewer viewer = new RulebookViewer("/images/rulebook.pdf", cacheBytes, diskCache);
+        rulebook = viewer;
+        viewer.load(() -> pane.setCenter(viewer.getView()), ex -> {
             VBox errorBox = new VBox(10);
             errorBox.setAlignment(Pos.CENTER);
             errorBox.setPadding(new Insets(20));
@@ -702,8 +763,6 @@ public class DashboardScreen {
             pane.setCenter(errorBox);
         });
         
-        new Thread(loadPdfTask).start();
-        
         return pane;
     }
 
@@ -723,12 +782,249 @@ public class DashboardScreen {
         return pane;
     }
 
+    private Parent buildLeaderboardTab() {
+        VBox box = new VBox(10);
+        box.setPadding(new Insets(10));
+        box.setStyle("-fx-background-color: transparent;");
+
+        ComboBox<String> scope = new ComboBox<>();
+        scope.getItems().add("Global");
+        scope.getSelectionModel().selectFirst();
+        Label myRank = new Label("Your rank: ...");
+        myRank.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #2e7d32;");
+
+        TableView<LeaderboardEntry> table = new TableView<>();
+        TableColumn<LeaderboardEntry, String> rankCol = new TableColumn<>("Rank");
+        rankCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty("#" + c.getValue().getRank()));
+        TableColumn<LeaderboardEntry, String> nameCol = new TableColumn<>("Player");
+        nameCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                c.getValue().getNickname() + (c.getValue().getUserId() == userId ? " (you)" : "")));
+        TableColumn<LeaderboardEntry, String> cityCol = new TableColumn<>("City");
+        cityCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                c.getValue().getCity() == null ? "" : c.getValue().getCity()));
+        TableColumn<LeaderboardEntry, String> pointsCol = new TableColumn<>("Points");
+        pointsCol.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(String.valueOf(c.getValue().getPoints())));
+        table.getColumns().add(rankCol);
+        table.getColumns().add(nameCol);
+        table.getColumns().add(cityCol);
+        table.getColumns().add(pointsCol);
+        // Rows arrive in rank order
+        table.getColumns().forEach(col -> col.setSortable(false));
+
+        String[] myCity = {null};
+        Consumer<Boolean> showLeaderboard = rescan -> {
+            String city = scope.getSelectionModel().getSelectedIndex() > 0 ? myCity[0] : null;
+            async.run(() -> {
+                // The first call loads the ranking index, so keep all of it off the FX thread
+                if (rescan) {
+                    // Picks up points written by other processes, which send no events
+                    leaderboard.reload();
+                }
+                List<LeaderboardEntry> top = leaderboard.top(city);
+                int rank = city == null ? leaderboard.globalRank(userId) : leaderboard.cityRank(userId);
+                int size = city == null ? leaderboard.globalSize() : leaderboard.citySize(city);
+                return new LeaderboardView(top, rank, size);
+            }, view -> {
+                table.getItems().setAll(view.top);
+                myRank.setText(view.rank > 0
+                        ? String.format("Your rank: #%d of %d%s", view.rank, view.size, city == null ? "" : " in " + city)
+                        : "Your rank: not ranked yet");
+            }, ex -> myRank.setText("Could not load leaderboard: " + ex.getMessage()));
+        };
+        leaderboardReload = () -> showLeaderboard.accept(false);
+        async.run(() -> userDao.findById(userId).map(User::getCity).orElse(null), city -> {
+            if (city != null && !city.isBlank()) {
+                myCity[0] = city;
+                scope.getItems().add(city);
+            }
+        }, null);
+        scope.setOnAction(e -> leaderboardReload.run());
+
+        Button refresh = new Button("Refresh");
+        refresh.setOnAction(e -> showLeaderboard.accept(true));
+        leaderboardReload.run();
+
+        HBox controls = new HBox(8, new Label("Show"), scope, refresh);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        VBox.setVgrow(table, Priority.ALWAYS);
+        box.getChildren().addAll(new Label("Leaderboard"), controls, myRank, table);
+        return box;
+    }
+
+    private Parent buildTrendsTab() {
+        VBox box = new VBox(10);
+        box.setPadding(new Insets(10));
+        box.setStyle("-fx-background-color: transparent;");
+
+        ComboBox<String> period = new ComboBox<>();
+        period.getItems().addAll("Daily (30 days)", "Weekly (26 weeks)", "Monthly (12 months)");
+        period.getSelectionModel().selectFirst();
+        ComboBox<String> scope = new ComboBox<>();
+        scope.getItems().addAll("Me", "My city", "Everyone");
+        scope.getSelectionModel().selectFirst();
+        ComboBox<String> category = new ComboBox<>();
+        category.getItems().add("All categories");
+        category.getItems().addAll(RecycleEntry.CATEGORIES);
+        category.getSelectionModel().selectFirst();
+
+        CategoryAxis x = new CategoryAxis();
+        NumberAxis y = new NumberAxis();
+        y.setLabel("kg");
+        BarChart<String, Number> chart = new BarChart<>(x, y);
+        chart.setLegendVisible(false);
+        chart.setAnimated(false);
+        Label status = new Label();
+
+        Runnable reload = () -> {
+            RollupDao.Period p = RollupDao.Period.values()[period.getSelectionModel().getSelectedIndex()];
+            int scopeIndex = scope.getSelectionModel().getSelectedIndex();
+            String cat = category.getSelectionModel().getSelectedIndex() > 0 ? category.getValue() : null;
+            List<String> buckets = trendBuckets(p);
+            status.setText("Loading...");
+            // Fold in anything saved since the last background run, then read pre-aggregated rows
+            async.track(() -> rollupJob.runNow().thenApplyAsync(rolledUp -> {
+                if (scopeIndex == 0) {
+                    return rollupDao.series(p, RollupDao.Scope.USER, Long.toString(userId), cat, buckets.get(0));
+                }
+                if (scopeIndex == 1) {
+                    String city = userDao.findById(userId).map(User::getCity).orElse(null);
+                    return city == null ? List.<RollupPoint>of() : rollupDao.series(p, RollupDao.Scope.CITY, city, cat, buckets.get(0));
+                }
+                return rollupDao.series(p, RollupDao.Scope.ALL, null, cat, buckets.get(0));
+            }, async.executor()), points -> {
+                Map<String, Double> kg = new HashMap<>();
+                double total = 0;
+                for (RollupPoint point : points) {
+                    kg.put(point.getBucket(), point.getTotalKg());
+                    total += point.getTotalKg();
+                }
+                // Every bucket gets a bar, so quiet periods show as gaps rather than disappearing
+                XYChart.Series<String, Number> series = new XYChart.Series<>();
+                for (String bucket : buckets) {
+                    series.getData().add(new XYChart.Data<>(bucket, kg.getOrDefault(bucket, 0.0)));
+                }
+                chart.getData().setAll(List.of(series));
+                status.setText(String.format("%.2f kg in this period", total));
+            }, ex -> status.setText("Could not load trends: " + ex.getMessage()));
+        };
+        period.setOnAction(e -> reload.run());
+        scope.setOnAction(e -> reload.run());
+        category.setOnAction(e -> reload.run());
+        reload.run();
+
+        HBox controls = new HBox(8, period, scope, category);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        VBox.setVgrow(chart, Priority.ALWAYS);
+        box.getChildren().addAll(new Label("Trends"), controls, status, chart);
+        return box;
+    }
+
+    // Bucket starts (yyyy-MM-dd) shown for a period, oldest first, ending with the current one
+    private static List<String> trendBuckets(RollupDao.Period period) {
+        LocalDate current = RollupDao.bucketStart(period, LocalDate.now());
+        int count = period == RollupDao.Period.DAY ? 30 : period == RollupDao.Period.WEEK ? 26 : 12;
+        List<String> buckets = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            LocalDate start = period == RollupDao.Period.DAY ? current.minusDays(i)
+                    : period == RollupDao.Period.WEEK ? current.minusWeeks(i) : current.minusMonths(i);
+            buckets.add(start.toString());
+        }
+        return buckets;
+    }
+
     public Parent getRoot() { return root; }
 
+    private static final class LeaderboardView {
+        private final List<LeaderboardEntry> top;
+        private final int rank;
+        private final int size;
+
+        LeaderboardView(List<LeaderboardEntry> top, int rank, int size) {
+            this.top = top;
+            this.rank = rank;
+            this.size = size;
+        }
+    }
+
+    private static final class RedeemOffer {
+        private final int totalPoints;
+        // Empty if no tiers are defined
+        private final OptionalInt minPoints;
+        private final Coupon coupon;
+        private final boolean alreadyRedeemed;
+
+        RedeemOffer(int totalPoints, OptionalInt minPoints, Coupon coupon, boolean alreadyRedeemed) {
+            this.totalPoints = totalPoints;
+            this.minPoints = minPoints;
+            this.coupon = coupon;
+            this.alreadyRedeemed = alreadyRedeemed;
+        }
+    }
+
+
+    /**
+     * Copies the entry's photo into the photo store and records its hash. A path that does not
+     * point at a file is kept as typed, without a hash. Runs off the FX thread.
+     */
+    private void storePhoto(RecycleEntry entry) {
+        String path = entry.getPhotoPath();
+        if (path == null || path.isBlank() || !new File(path).isFile()) {
+            return;
+        }
+        try {
+            entry.setPhotoHash(photoStore.importPhoto(new File(path)));
+        } catch (IOException ex) {
+            System.err.println("Could not store photo " + path + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * The file to show for an entry's photo: the stored copy when there is one, else the original
+     * path. Called from table cells, so it must not touch the disk.
+     */
+    private String photoSource(RecycleEntry entry) {
+        if (LazyHistoryList.isPlaceholder(entry)) {
+            return null;
+        }
+        if (entry.getPhotoHash() != null) {
+            return photoStore.resolve(entry.getPhotoHash()).getPath();
+        }
+        return entry.getPhotoPath();
+    }
+
     private void reloadHistory() {
-        if (historyTable != null) {
-            historyTable.getItems().setAll(recycleDao.listByUser(this.userId));
+        if (historyItems != null) {
+            historyItems.refresh();
+        }
+        reloadStats();
+    }
+
+    private void reloadStats() {
+        if (statsLabel == null) {
+            return;
+        }
+        async.run(() -> statsDao.getStats(userId), stats -> statsLabel.setText(formatStats(stats)),
+                ex -> statsLabel.setText("Could not load totals: " + ex.getMessage()));
+    }
+
+    private static String formatStats(List<CategoryStats> stats) {
+        if (stats.isEmpty()) {
+            return "No recycling recorded yet.";
+        }
+        int entries = 0;
+        double kg = 0;
+        long last = 0;
+        StringBuilder byCategory = new StringBuilder();
+        for (CategoryStats s : stats) {
+            entries += s.getEntries();
+            kg += s.getTotalKg();
+            last = Math.max(last, s.getLastAt());
+            byCategory.append(byCategory.length() == 0 ? "" : "  ·  ")
+                    .append(String.format("%s %.2f kg (%d)", s.getCategory(), s.getTotalKg(), s.getEntries()));
         }
+        String lastActivity = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+                .format(Instant.ofEpochMilli(last).atZone(ZoneId.systemDefault()));
+        return String.format("%d entries, %.2f kg in total, last activity %s%n%s", entries, kg, lastActivity, byCategory);
     }
 
     @SuppressWarnings("unused")
@@ -0,0 +1,141 @@
+package com.recyclingquest.ui;
+
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableSet;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking work (JDBC, file I/O) on a background pool and delivers the result back on the
+ * FX thread, so screens never block the UI thread. Work submitted under a key that is already in
+ * flight is not started again (double-clicks, repeated refreshes). {@link #busyProperty()} is
+ * true while any work is running, for binding a busy indicator; {@link #busyProperty(String...)}
+ * only tracks the given keys, for screens that must not wait on other screens' work.
+ */
+public class FxAsync {
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+    // FX thread only: keys with work in flight
+    private final ObservableSet<String> runningKeys = FXCollections.observableSet();
+    private int running;
+
+    public FxAsync(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "fx-async-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public <T> CompletableFuture<T> run(Supplier<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return run(null, work, onSuccess, onError);
+    }
+
+    /**
+     * Runs {@code work} in the background and calls {@code onSuccess} or {@code onError} on the FX
+     * thread. If {@code key} is non-null and work with the same key is still running, the running
+     * future is returned and the new callbacks are dropped. Must be called on the FX thread.
+     */
+    public <T> CompletableFuture<T> run(String key, Supplier<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return track(key, () -> CompletableFuture.supplyAsync(work, executor), onSuccess, onError);
+    }
+
+    public <T> CompletableFuture<T> track(Supplier<CompletableFuture<T>> start, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return track(null, start, onSuccess, onError);
+    }
+
+    /**
+     * Like {@link #run(String, Supplier, Consumer, Consumer)} for work that is already asynchronous:
+     * {@code start} is called on the FX thread and must only kick off the future (chain further
+     * blocking steps with {@code thenApplyAsync(..., executor())}), never wait on it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> track(String key, Supplier<CompletableFuture<T>> start, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        if (key != null) {
+            CompletableFuture<?> existing = inFlight.get(key);
+            if (existing != null) {
+                return (CompletableFuture<T>) existing;
+            }
+        }
+        CompletableFuture<T> future = start.get();
+        if (key != null) {
+            inFlight.put(key, future);
+            runningKeys.add(key);
+        }
+        setRunning(running + 1);
+        future.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (key != null) {
+                inFlight.remove(key, future);
+                if (!inFlight.containsKey(key)) {
+                    runningKeys.remove(key);
+                }
+            }
+            setRunning(running - 1);
+            if (error == null) {
+                if (onSuccess != null) onSuccess.accept(value);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (onError != null) {
+                    onError.accept(cause);
+                } else {
+                    System.err.println("Background task failed: " + cause);
+                }
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * The background pool, for chaining blocking steps onto futures passed to {@link #track}.
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    public boolean isInFlight(String key) {
+        return inFlight.containsKey(key);
+    }
+
+    public ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    /**
+     * True while work submitted under any of {@code keys} is running.
+     */
+    public BooleanBinding busyProperty(String... keys) {
+        return Bindings.createBooleanBinding(() -> {
+            for (String key : keys) {
+                if (runningKeys.contains(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }, runningKeys);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void setRunning(int value) {
+        running = value;
+        busy.set(value > 0);
+    }
+}
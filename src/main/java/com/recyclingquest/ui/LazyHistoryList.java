@@ -0,0 +1,194 @@
+package com.recyclingquest.ui;
+
+import com.recyclingquest.dao.RecycleChange;
+import com.recyclingquest.dao.RecycleDao;
+import com.recyclingquest.model.RecycleEntry;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only list backing the history TableView. It reports the full row count but only keeps a
+ * bounded LRU window of pages in memory. Rows that are not loaded yet come back as a placeholder
+ * and their page is fetched through {@link FxAsync}, so the table only ever pulls what it renders.
+ * Rows recorded after the last refresh are kept in a small head list in front of the paged rows,
+ * so a submit or an edit is applied as a single-row change instead of a reload.
+ * Must be used from the FX thread.
+ */
+class LazyHistoryList extends ObservableListBase<RecycleEntry> {
+    private static final RecycleEntry PLACEHOLDER = new RecycleEntry();
+
+    private final RecycleDao dao;
+    private final long userId;
+    private final int pageSize;
+    private final int maxPages;
+    private final FxAsync async;
+    private final LinkedHashMap<Integer, List<RecycleEntry>> pages;
+    // Keyset cursor for page k: the last row of page k-1 (evicted pages keep their cursor)
+    private final Map<Integer, RecycleEntry> cursors = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    // Newest first; these rows sit in front of the paged rows
+    private final List<RecycleEntry> head = new ArrayList<>();
+    private int pagedSize;
+    private int generation;
+    // Bumped when the head grows, so page loads computed against the old head are dropped
+    private int headVersion;
+
+    LazyHistoryList(RecycleDao dao, FxAsync async, long userId, int pageSize, int maxPages) {
+        this.dao = dao;
+        this.async = async;
+        this.userId = userId;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true);
+    }
+
+    static boolean isPlaceholder(RecycleEntry e) {
+        return e == null || e == PLACEHOLDER;
+    }
+
+    @Override
+    public RecycleEntry get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (index < head.size()) {
+            return head.get(index);
+        }
+        int pagedIndex = index - head.size();
+        int page = pagedIndex / pageSize;
+        List<RecycleEntry> rows = pages.get(page);
+        int offset = pagedIndex % pageSize;
+        if (rows != null && offset < rows.size()) {
+            return rows.get(offset);
+        }
+        requestPage(page);
+        return PLACEHOLDER;
+    }
+
+    @Override
+    public int size() {
+        return head.size() + pagedSize;
+    }
+
+    /**
+     * Drops everything cached and re-reads the row count; visible rows reload on demand.
+     */
+    void refresh() {
+        int gen = ++generation;
+        async.run(() -> dao.countByUser(userId), count -> {
+            if (gen != generation) return;
+            int oldSize = size();
+            pages.clear();
+            cursors.clear();
+            loading.clear();
+            head.clear();
+            pagedSize = count;
+            beginChange();
+            if (oldSize > 0) {
+                nextRemove(0, Collections.nCopies(oldSize, PLACEHOLDER));
+            }
+            if (count > 0) {
+                nextAdd(0, count);
+            }
+            endChange();
+        }, null);
+    }
+
+    /**
+     * Applies a committed insert or update as a single-row change.
+     */
+    void apply(RecycleChange change) {
+        RecycleEntry entry = change.getEntry();
+        if (entry.getUserId() != userId) return;
+        if (change.getType() == RecycleChange.Type.INSERTED) {
+            if (head.size() >= pageSize) {
+                // Keep the head small; fold it into the paged rows instead
+                refresh();
+                return;
+            }
+            head.add(0, entry);
+            headVersion++;
+            loading.clear();
+            beginChange();
+            nextAdd(0, 1);
+            endChange();
+            return;
+        }
+        for (int i = 0; i < head.size(); i++) {
+            if (head.get(i).getId() == entry.getId()) {
+                replace(i, head, i, entry);
+                return;
+            }
+        }
+        for (Map.Entry<Integer, List<RecycleEntry>> p : pages.entrySet()) {
+            List<RecycleEntry> rows = p.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getId() == entry.getId()) {
+                    replace(head.size() + p.getKey() * pageSize + i, rows, i, entry);
+                    return;
+                }
+            }
+        }
+        // Not loaded: it will be read fresh when it scrolls into view
+    }
+
+    private void replace(int index, List<RecycleEntry> rows, int offset, RecycleEntry entry) {
+        RecycleEntry old = rows.set(offset, entry);
+        beginChange();
+        nextSet(index, old);
+        endChange();
+    }
+
+    private void requestPage(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+        int gen = generation;
+        int version = headVersion;
+        // Head rows are newer than every paged row, so page 0 starts after the oldest head row
+        // and an OFFSET query has to skip them too
+        RecycleEntry cursor = page == 0
+                ? (head.isEmpty() ? null : head.get(head.size() - 1))
+                : cursors.get(page);
+        boolean seekable = page == 0 || cursor != null;
+        int offset = page * pageSize + head.size();
+        async.run(() -> seekable
+                        ? dao.listPage(userId, cursor, pageSize).getItems()
+                        : dao.listPageAt(userId, offset, pageSize),
+                rows -> applyPage(gen, version, page, rows),
+                ex -> {
+                    if (gen == generation && version == headVersion) loading.remove(page);
+                });
+    }
+
+    private void applyPage(int gen, int version, int page, List<RecycleEntry> rows) {
+        if (gen != generation || version != headVersion) return;
+        loading.remove(page);
+        // Rows can be mutated in place by apply(), so keep a private copy
+        rows = new ArrayList<>(rows);
+        pages.put(page, rows);
+        if (!rows.isEmpty()) {
+            cursors.put(page + 1, rows.get(rows.size() - 1));
+        }
+        while (pages.size() > maxPages) {
+            Integer eldest = pages.keySet().iterator().next();
+            pages.remove(eldest);
+        }
+        int from = head.size() + page * pageSize;
+        int to = Math.min(from + rows.size(), size());
+        if (from >= to) return;
+        beginChange();
+        for (int i = from; i < to; i++) {
+            nextSet(i, PLACEHOLDER);
+        }
+        endChange();
+    }
+}
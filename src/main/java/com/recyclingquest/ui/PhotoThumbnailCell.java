@@ -0,0 +1,72 @@
+package com.recyclingquest.ui;
+
+import com.recyclingquest.media.ThumbnailService;
+import com.recyclingquest.model.RecycleEntry;
+import javafx.application.Platform;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.Tooltip;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * History table cell that shows a photo's thumbnail and the file name the user picked. The
+ * thumbnail is made from {@code thumbnailSource} (the stored copy when there is one). It comes from
+ * the {@link ThumbnailService} memory cache when possible; otherwise the cell shows just the name
+ * and fills in the image when the background load finishes, if it still shows that photo.
+ */
+class PhotoThumbnailCell extends TableCell<RecycleEntry, String> {
+    private static final double DISPLAY_SIZE = 24;
+
+    private final ThumbnailService thumbnails;
+    private final Function<RecycleEntry, String> thumbnailSource;
+    private final ImageView view = new ImageView();
+
+    PhotoThumbnailCell(ThumbnailService thumbnails, Function<RecycleEntry, String> thumbnailSource) {
+        this.thumbnails = thumbnails;
+        this.thumbnailSource = thumbnailSource;
+        view.setFitWidth(DISPLAY_SIZE);
+        view.setFitHeight(DISPLAY_SIZE);
+        view.setPreserveRatio(true);
+    }
+
+    @Override
+    protected void updateItem(String path, boolean empty) {
+        super.updateItem(path, empty);
+        view.setImage(null);
+        if (empty || path == null || path.isBlank()) {
+            setText(null);
+            setGraphic(null);
+            setTooltip(null);
+            return;
+        }
+        setText(new File(path).getName());
+        setTooltip(new Tooltip(path));
+        RecycleEntry entry = getTableRow() == null ? null : getTableRow().getItem();
+        String source = entry == null ? path : thumbnailSource.apply(entry);
+        Image cached = thumbnails.cached(source);
+        if (cached != null) {
+            show(cached);
+            return;
+        }
+        setGraphic(null);
+        thumbnails.load(source).whenComplete((image, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                // The cell keeps showing just the file name
+                System.err.println("Could not load thumbnail for " + source + ": " + error);
+                return;
+            }
+            if (image != null && Objects.equals(getItem(), path)) {
+                show(image);
+            }
+        }));
+    }
+
+    private void show(Image image) {
+        view.setImage(image);
+        setGraphic(view);
+    }
+}
@@ -0,0 +1,238 @@
+package com.recyclingquest.ui;
+
+import com.recyclingquest.media.ByteBoundedCache;
+import com.recyclingquest.media.PageDiskCache;
+import com.recyclingquest.media.PageRenderPool;
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.geometry.Pos;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Region;
+import javafx.stage.Screen;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Virtualized PDF viewer: a ListView with one cell per page. Only pages that scroll into view and
+ * their direct neighbours are rendered, in parallel on a {@link PageRenderPool}, at the size they
+ * are shown at; each page appears as soon as its own render finishes.
+ * Rendered pages live in a byte-bounded LRU and cells drop their image when they are reused, so
+ * memory stays proportional to the visible pages. Pages are also kept in a {@link PageDiskCache},
+ * so later launches decode a PNG instead of rendering the PDF again.
+ */
+class RulebookViewer {
+    private static final double PAGE_WIDTH = 800;
+    private static final int PREFETCH = 1;
+
+    private final String resource;
+    private final ListView<Integer> list = new ListView<>();
+    private final ByteBoundedCache<Integer, Image> cache;
+    private final PageDiskCache diskCache;
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    // FX thread only: the page each live cell is showing
+    private final Map<Integer, PageCell> cellsByPage = new HashMap<>();
+    private final double outputScale = Screen.getPrimary().getOutputScaleX();
+    private volatile int visibleFrom;
+    private volatile int visibleTo = -1;
+    private volatile PageRenderPool renderPool;
+    private volatile boolean closed;
+    // Disk cache key for this document at this render width; set by open()
+    private String diskKey;
+    private List<PDRectangle> pageSizes = List.of();
+
+    RulebookViewer(String resource, long cacheBytes, PageDiskCache diskCache) {
+        this.resource = resource;
+        this.diskCache = diskCache;
+        this.cache = new ByteBoundedCache<>(cacheBytes, img -> (long) img.getWidth() * (long) img.getHeight() * 4);
+        list.setCellFactory(v -> new PageCell());
+        list.setStyle("-fx-background-color: transparent;");
+    }
+
+    ListView<Integer> getView() {
+        return list;
+    }
+
+    /**
+     * Opens the document in the background; {@code onReady} runs on the FX thread once the page
+     * list is populated (nothing has been rendered yet at that point).
+     */
+    void load(Runnable onReady, Consumer<Throwable> onError) {
+        Thread loader = new Thread(() -> {
+            try {
+                List<PDRectangle> sizes = open();
+                Platform.runLater(() -> {
+                    pageSizes = sizes;
+                    List<Integer> pages = new ArrayList<>(sizes.size());
+                    for (int i = 0; i < sizes.size(); i++) {
+                        pages.add(i);
+                    }
+                    list.getItems().setAll(pages);
+                    onReady.run();
+                });
+            } catch (IOException | RuntimeException e) {
+                Platform.runLater(() -> onError.accept(e));
+            }
+        }, "rulebook-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private List<PDRectangle> open() throws IOException {
+        byte[] bytes;
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("PDF file not found in resources");
+            }
+            bytes = in.readAllBytes();
+        }
+        diskKey = PageDiskCache.keyFor(bytes, (int) Math.round(PAGE_WIDTH * outputScale));
+        List<PDRectangle> sizes;
+        try (PDDocument document = Loader.loadPDF(bytes)) {
+            sizes = new ArrayList<>(document.getNumberOfPages());
+            for (int i = 0; i < document.getNumberOfPages(); i++) {
+                sizes.add(document.getPage(i).getMediaBox());
+            }
+        }
+        renderPool = new PageRenderPool(bytes, PageRenderPool.defaultThreads(), "rulebook-render");
+        if (closed) {
+            // Closed while the document was being read
+            renderPool.shutdown();
+        }
+        return sizes;
+    }
+
+    /**
+     * Stops rendering and releases the render workers' documents and the cached pages. The
+     * viewer shows nothing new afterwards.
+     */
+    void close() {
+        closed = true;
+        PageRenderPool pool = renderPool;
+        if (pool != null) {
+            pool.shutdown();
+        }
+        cache.clear();
+    }
+
+    private void request(int page) {
+        if (closed || page < 0 || page >= pageSizes.size() || cache.contains(page) || !pending.add(page)) {
+            return;
+        }
+        float scale = (float) (PAGE_WIDTH * outputScale / pageSizes.get(page).getWidth());
+        renderPool.submit(pdfRenderer -> {
+            // Skip pages that scrolled away while queued
+            if (page < visibleFrom - PREFETCH || page > visibleTo + PREFETCH) {
+                pending.remove(page);
+                return null;
+            }
+            try {
+                Image image = diskCache.load(diskKey, page);
+                BufferedImage rendered = null;
+                if (image == null) {
+                    rendered = pdfRenderer.renderImage(page, scale);
+                    image = SwingFXUtils.toFXImage(rendered, null);
+                }
+                Image shown = image;
+                Platform.runLater(() -> {
+                    if (closed) {
+                        return;
+                    }
+                    cache.put(page, shown);
+                    pending.remove(page);
+                    PageCell cell = cellsByPage.get(page);
+                    if (cell != null) {
+                        cell.show(shown);
+                    }
+                });
+                if (rendered != null) {
+                    // After handing the page to the UI, so encoding the PNG does not delay it
+                    diskCache.store(diskKey, page, rendered);
+                }
+            } catch (IOException | RuntimeException e) {
+                pending.remove(page);
+                System.err.println("Could not render rulebook page " + (page + 1) + ": " + e.getMessage());
+            }
+            return null;
+        }).exceptionally(e -> {
+            // The worker could not open its copy of the document
+            pending.remove(page);
+            System.err.println("Could not render rulebook page " + (page + 1) + ": " + e.getMessage());
+            return null;
+        });
+    }
+
+    private void updateVisibleRange() {
+        int from = Integer.MAX_VALUE;
+        int to = -1;
+        for (Integer page : cellsByPage.keySet()) {
+            from = Math.min(from, page);
+            to = Math.max(to, page);
+        }
+        visibleFrom = from;
+        visibleTo = to;
+    }
+
+    private final class PageCell extends ListCell<Integer> {
+        private final ImageView view = new ImageView();
+        private final Region placeholder = new Region();
+        private Integer page;
+
+        PageCell() {
+            view.setPreserveRatio(true);
+            view.setFitWidth(PAGE_WIDTH);
+            setAlignment(Pos.CENTER);
+            setStyle("-fx-background-color: transparent;");
+        }
+
+        @Override
+        protected void updateItem(Integer item, boolean empty) {
+            super.updateItem(item, empty);
+            if (page != null && cellsByPage.get(page) == this) {
+                cellsByPage.remove(page);
+            }
+            // Let go of the previous page's pixels; the cache decides what stays in memory
+            view.setImage(null);
+            page = empty ? null : item;
+            if (page == null) {
+                setGraphic(null);
+                updateVisibleRange();
+                return;
+            }
+            cellsByPage.put(page, this);
+            updateVisibleRange();
+            Image cached = cache.get(page);
+            if (cached != null) {
+                show(cached);
+            } else {
+                PDRectangle size = pageSizes.get(page);
+                placeholder.setPrefSize(PAGE_WIDTH, PAGE_WIDTH * size.getHeight() / size.getWidth());
+                setGraphic(placeholder);
+                request(page);
+            }
+            for (int i = 1; i <= PREFETCH; i++) {
+                request(page - i);
+                request(page + i);
+            }
+        }
+
+        void show(Image image) {
+            view.setImage(image);
+            setGraphic(view);
+        }
+    }
+}
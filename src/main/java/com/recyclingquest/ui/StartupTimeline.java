@@ -0,0 +1,75 @@
+package com.recyclingquest.ui;
+
+import javafx.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named timestamps from the start of a startup sequence (app launch, opening the dashboard) up
+ * to its first rendered frame, for logging and for tracking time-to-interactive regressions.
+ */
+public class StartupTimeline {
+    private final String name;
+    private final long startNanos;
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> offsets = new ArrayList<>();
+    private long firstFrameNanos = -1;
+
+    public StartupTimeline(String name) {
+        this.name = name;
+        this.startNanos = System.nanoTime();
+    }
+
+    public synchronized void mark(String phase) {
+        phases.add(phase);
+        offsets.add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Marks "first frame" after the next layout pulse of {@code scene} and logs the report.
+     */
+    public void markFirstFrame(Scene scene) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            synchronized (this) {
+                firstFrameNanos = System.nanoTime() - startNanos;
+            }
+            mark("first frame");
+            System.out.println(report());
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    /**
+     * Phase name to milliseconds since the start, in the order they were marked.
+     */
+    public synchronized Map<String, Long> getPhases() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < phases.size(); i++) {
+            result.put(phases.get(i), offsets.get(i) / 1_000_000);
+        }
+        return result;
+    }
+
+    /**
+     * Milliseconds from the start to the first frame, or -1 if it has not been rendered yet.
+     */
+    public synchronized long getFirstFrameMillis() {
+        return firstFrameNanos < 0 ? -1 : firstFrameNanos / 1_000_000;
+    }
+
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder("Startup timeline [" + name + "]");
+        long previous = 0;
+        for (int i = 0; i < phases.size(); i++) {
+            long at = offsets.get(i);
+            sb.append(String.format("%n  %-28s %6d ms (+%d ms)", phases.get(i), at / 1_000_000, (at - previous) / 1_000_000));
+            previous = at;
+        }
+        return sb.toString();
+    }
+}